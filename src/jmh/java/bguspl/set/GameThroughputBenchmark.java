@@ -0,0 +1,92 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the claim throughput of whole games of many computer players: every invocation plays a headless game to
+ * its end, with the same configuration as the Simulator (a virtual clock and no artificial delays), so the players
+ * submit claims as fast as the dealer checks them. The score is games per second, and the claims and sets counters
+ * are the claims checked and the sets collected per second.
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="GameThroughputBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GameThroughputBenchmark {
+
+    @Param({"50", "100"})
+    int computerPlayers;
+
+    @Param({GameThreads.PLATFORM, GameThreads.VIRTUAL})
+    String threadMode;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long claims;
+        public long sets;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            claims = 0;
+            sets = 0;
+        }
+    }
+
+    Config config;
+    Logger logger;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(computerPlayers));
+        properties.put("ThreadMode", threadMode);
+        properties.put("Hints", "False");
+        properties.put("Clock", "virtual");
+        properties.put("TurnTimeoutWarningSeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ComputerPlayerDelaySeconds", "0");
+        logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        config = new Config(logger, properties);
+    }
+
+    @Benchmark
+    public void game(Throughput throughput) throws InterruptedException {
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new NullUserInterface(), util);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        dealerThread.join();
+
+        throughput.claims += dealer.claimsChecked();
+        for (Player player : players)
+            throughput.sets += player.score();
+    }
+}
@@ -0,0 +1,77 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares the set validators of UtilImpl for feature sizes 3 to 6.
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="SetValidatorBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SetValidatorBenchmark {
+
+    /**
+     * The number of candidate sets checked, half of them legal sets and half of them random cards.
+     */
+    private static final int CANDIDATES = 4096;
+
+    @Param({"3", "4", "5", "6"})
+    int featureSize;
+
+    @Param({"4"})
+    int featureCount;
+
+    UtilImpl util;
+    int[][] candidates;
+    int next;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+
+        Random random = new Random(0);
+        candidates = new int[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; ++i)
+            candidates[i] = i % 2 == 0
+                    ? UtilImplTest.randomSet(random, featureSize, featureCount)
+                    : random.ints(featureSize, 0, config.deckSize).toArray();
+    }
+
+    private int[] nextCandidate() {
+        next = (next + 1) & (CANDIDATES - 1);
+        return candidates[next];
+    }
+
+    @Benchmark
+    public boolean pairwise() {
+        return util.testSetPairwise(nextCandidate());
+    }
+
+    @Benchmark
+    public boolean bitmask() {
+        return util.testSetBitmask(nextCandidate());
+    }
+
+    @Benchmark
+    public boolean packed() {
+        return util.testSetPacked(nextCandidate());
+    }
+}
@@ -0,0 +1,100 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares the OS thread count and heap usage of games with 10, 100 and 1000 computer players, for every thread mode.
+ * Every invocation runs a headless game for gameMillis and reports the OS threads the game added while it ran (osThreads),
+ * the most it added at once (peakThreads) and the heap used (heapMegabytes).
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ThreadModeBenchmark -f 1 -wi 0 -i 1"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThreadModeBenchmark {
+
+    @Param({GameThreads.PLATFORM, GameThreads.VIRTUAL})
+    String threadMode;
+
+    @Param({"10", "100", "1000"})
+    int computerPlayers;
+
+    /**
+     * How long every game runs before it is terminated.
+     */
+    @Param({"2000"})
+    long gameMillis;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long osThreads;
+        public long peakThreads;
+        public double heapMegabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            osThreads = 0;
+            peakThreads = 0;
+            heapMegabytes = 0;
+        }
+    }
+
+    Config config;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(computerPlayers));
+        properties.put("ThreadMode", threadMode);
+        properties.put("TableDelaySeconds", "0");
+        config = new Config(Logger.getAnonymousLogger(), properties);
+    }
+
+    @Benchmark
+    public void game(Footprint footprint) throws InterruptedException {
+        Logger logger = Logger.getAnonymousLogger();
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new NullUserInterface(), util);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int before = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        Thread.sleep(gameMillis);
+
+        footprint.osThreads = threads.getThreadCount() - before;
+        footprint.peakThreads = threads.getPeakThreadCount() - before;
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        footprint.heapMegabytes = (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0);
+        dealer.terminate();
+        dealerThread.join();
+    }
+}
@@ -0,0 +1,88 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the set engine of UtilImpl: checking candidate sets, and searching for sets among a number of cards.
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="UtilImplBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UtilImplBenchmark {
+
+    /**
+     * The number of candidate sets checked, half of them legal sets and half of them random cards.
+     */
+    private static final int CANDIDATES = 1024;
+
+    @Param({"3", "4"})
+    int featureSize;
+
+    @Param({"4", "5"})
+    int featureCount;
+
+    /**
+     * The number of cards sets are searched among (capped by the deck size). From ParallelSearchThreshold (256) cards
+     * findSets(cards, count) searches in parallel.
+     */
+    @Param({"12", "81", "1024"})
+    int cards;
+
+    UtilImpl util;
+    int[][] candidates;
+    int[] searched;
+    int next;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+
+        Random random = new Random(0);
+        candidates = new int[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; ++i)
+            candidates[i] = i % 2 == 0
+                    ? UtilImplTest.randomSet(random, featureSize, featureCount)
+                    : random.ints(featureSize, 0, config.deckSize).toArray();
+        searched = random.ints(0, config.deckSize).distinct().limit(Math.min(cards, config.deckSize)).toArray();
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        next = (next + 1) & (CANDIDATES - 1);
+        return util.testSet(candidates[next]);
+    }
+
+    @Benchmark
+    public Object findFirstSet() {
+        return util.findSets(searched, 1);
+    }
+
+    @Benchmark
+    public void findAllSets(Blackhole blackhole) {
+        util.findSets(searched).forEachRemaining(blackhole::consume);
+    }
+
+    @Benchmark
+    public Object findAllSetsAtOnce() {
+        return util.findSets(searched, Integer.MAX_VALUE);
+    }
+}
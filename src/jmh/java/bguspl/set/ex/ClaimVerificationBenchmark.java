@@ -0,0 +1,100 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.NullUserInterface;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the dealer's claim verification path: a batch of claims (one per player) is submitted and checked by
+ * removeCardsFromTable. The claims are not sets, so the table does not change between invocations.
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="ClaimVerificationBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClaimVerificationBenchmark {
+
+    @Param({"3", "4"})
+    int featureSize;
+
+    @Param({"4", "5"})
+    int featureCount;
+
+    /**
+     * The table is rows x 4 slots.
+     */
+    @Param({"3", "6"})
+    int rows;
+
+    /**
+     * The number of claims in every batch.
+     */
+    @Param({"1", "64"})
+    int players;
+
+    Table table;
+    Dealer dealer;
+    int[][] slots;
+    int[][] cards;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", "4");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        Env env = new Env(Logger.getAnonymousLogger(), config, new NullUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        Player[] players = new Player[config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; ++i)
+            players[i] = new Player(env, dealer, table, i, false);
+        dealer.stop = false;
+
+        SplittableRandom random = new SplittableRandom(0);
+        Deck deck = new Deck(config.deckSize, random.split());
+        for (int i = 0; i < config.tableSize; ++i)
+            table.placeCard(deck.draw(), i);
+
+        slots = new int[players.length][];
+        cards = new int[players.length][];
+        for (int i = 0; i < players.length; ++i) {
+            do {
+                slots[i] = random.ints(0, config.tableSize).distinct().limit(featureSize).toArray();
+                cards[i] = new int[featureSize];
+                table.readCards(slots[i], cards[i]);
+            } while (env.util.testSet(cards[i]));
+        }
+    }
+
+    @Benchmark
+    public Dealer verifyBatch() {
+        for (int i = 0; i < slots.length; ++i) {
+            int[] epochs = new int[slots[i].length];
+            table.readCards(slots[i], new int[slots[i].length], epochs);
+            dealer.submitClaim(i, slots[i], cards[i], epochs);
+        }
+        dealer.removeCardsFromTable();
+        return dealer;
+    }
+}
@@ -0,0 +1,72 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.NullUserInterface;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures replacing a card on a full table (removeCard followed by placeCard, with no table delay), including the
+ * update of the sets on the table.
+ * Run with: mvn -P jmh test-compile exec:exec -Djmh.args="TableBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TableBenchmark {
+
+    @Param({"3", "4"})
+    int featureSize;
+
+    @Param({"4", "5"})
+    int featureCount;
+
+    /**
+     * The table is rows x 4 slots.
+     */
+    @Param({"3", "6"})
+    int rows;
+
+    Table table;
+    Deck deck;
+    int slot;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", "4");
+        properties.put("TableDelaySeconds", "0");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        Env env = new Env(Logger.getAnonymousLogger(), config, new NullUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        deck = new Deck(config.deckSize, new SplittableRandom(0));
+        for (int i = 0; i < config.tableSize; ++i)
+            table.placeCard(deck.draw(), i);
+    }
+
+    @Benchmark
+    public int replaceCard() {
+        slot = (slot + 1) % table.slotToCard.length();
+        deck.add(table.cardAt(slot));
+        table.removeCard(slot);
+        table.placeCard(deck.draw(), slot);
+        return table.countSets();
+    }
+}
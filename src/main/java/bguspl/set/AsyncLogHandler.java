@@ -0,0 +1,190 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that hands the log records over to a background thread, which formats them and publishes them to
+ * another handler (e.g. a FileHandler). The threads that log never format a message or wait for disk I/O: a record is
+ * only added to a bounded ArrayBlockingQueue, and if it is full the record is dropped (and counted) instead of blocking
+ * the game. The queue is an array ring guarded by a short lock, not a lock-free ring.
+ * <p>
+ * Records with parameters (e.g. logger.log(Level.INFO, "card {0}", card)) are formatted by the background thread too.
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The default number of records the buffer holds.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The handler the records are published to, by the background thread only.
+     */
+    private final Handler target;
+
+    /**
+     * The records waiting to be published.
+     */
+    private final BlockingQueue<LogRecord> records;
+
+    /**
+     * The number of records dropped because the buffer was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The number of dropped records reported so far (by the background thread only).
+     */
+    private long reported;
+
+    /**
+     * The number of records published so far (for flushing).
+     */
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * The monitor the threads that flush wait on, notified by the background thread after every batch.
+     */
+    private final Object flushed = new Object();
+
+    /**
+     * The number of records accepted so far (for flushing).
+     */
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates a handler with the default capacity.
+     *
+     * @param target - the handler the records are published to.
+     */
+    public AsyncLogHandler(Handler target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * The class constructor.
+     *
+     * @param target   - the handler the records are published to.
+     * @param capacity - the maximal number of records waiting to be published.
+     */
+    public AsyncLogHandler(Handler target, int capacity) {
+        this.target = target;
+        records = new ArrayBlockingQueue<>(capacity);
+        writer = new Thread(this::write, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        if (records.offer(record)) accepted.incrementAndGet();
+        else dropped.incrementAndGet();
+    }
+
+    /**
+     * The main loop of the background thread: publishes the records in batches.
+     */
+    private void write() {
+        List<LogRecord> batch = new ArrayList<>();
+        while (!closed || !records.isEmpty()) {
+            try {
+                LogRecord first = records.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                records.drainTo(batch);
+                reportDropped();
+                for (LogRecord record : batch)
+                    target.publish(record);
+                if (records.isEmpty()) target.flush();
+                published(batch);
+            } catch (InterruptedException ignored) {
+            } catch (RuntimeException e) {
+                reportError("failed publishing log records", e, ErrorManager.WRITE_FAILURE);
+                published(batch);
+            }
+        }
+        synchronized (flushed) {
+            flushed.notifyAll();
+        }
+    }
+
+    /**
+     * Counts a batch as published and wakes up the threads waiting for it to be flushed.
+     *
+     * @param batch - the batch of records published (cleared).
+     */
+    private void published(List<LogRecord> batch) {
+        published.addAndGet(batch.size());
+        batch.clear();
+        synchronized (flushed) {
+            flushed.notifyAll();
+        }
+    }
+
+    /**
+     * Publishes a warning with the number of records dropped since the last report, if any.
+     */
+    private void reportDropped() {
+        long count = dropped.get() - reported;
+        reported += count;
+        if (count > 0) target.publish(new LogRecord(Level.WARNING, "log buffer full, dropped " + count + " records"));
+    }
+
+    /**
+     * Waits until the records accepted so far are published, and flushes the target handler.
+     */
+    @Override
+    public void flush() {
+        long until = accepted.get();
+        synchronized (flushed) {
+            while (published.get() < until && writer.isAlive()) {
+                try {
+                    flushed.wait(100); // re-checks if the writer died without notifying
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        target.flush();
+    }
+
+    /**
+     * Publishes the remaining records and closes the target handler.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException ignored) {}
+        target.close();
+    }
+
+    @Override
+    public void setFormatter(Formatter formatter) {
+        super.setFormatter(formatter);
+        target.setFormatter(formatter);
+    }
+
+    /**
+     * @return - the number of records dropped so far.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,53 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This interface is the source of time for the game: every time the game reads the time or waits for some time to
+ * pass, it does so through the clock in the environment object, so games can run on a virtual clock.
+ */
+public interface Clock {
+
+    /**
+     * The clock of the real (wall clock) time.
+     */
+    String SYSTEM = "system";
+
+    /**
+     * A virtual clock, whose time passes only when a thread waits (see {@link VirtualClock}), for simulations.
+     */
+    String VIRTUAL = "virtual";
+
+    /**
+     * @return - the current time in milliseconds.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Waits until the given time passes.
+     *
+     * @param millis - the number of milliseconds to wait.
+     * @throws InterruptedException - if the thread was interrupted while waiting.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Takes an item from a queue, waiting until the given time passes if the queue is empty.
+     *
+     * @param queue  - the queue.
+     * @param millis - the maximal number of milliseconds to wait.
+     * @return - the item taken, or null if none was available in time.
+     * @throws InterruptedException - if the thread was interrupted while waiting.
+     */
+    <T> T poll(BlockingQueue<T> queue, long millis) throws InterruptedException;
+
+    /**
+     * Creates the clock of the configured kind.
+     *
+     * @param config - the game configuration.
+     * @return - a virtual clock if configured, otherwise the system clock.
+     */
+    static Clock create(Config config) {
+        return VIRTUAL.equals(config.clock) ? new VirtualClock() : new SystemClock();
+    }
+}
@@ -36,6 +36,42 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * Whether the features of all the cards in the deck should be computed once (instead of on every set check)
+     */
+    public final boolean precomputeFeatures;
+
+    /**
+     * The number of cards from which sets are searched for in parallel (when a number of sets is requested)
+     */
+    public final int parallelSearchThreshold;
+
+    /**
+     * Whether the player and computer player threads are platform threads or virtual threads ("platform" / "virtual").
+     */
+    public final String threadMode;
+
+    /**
+     * The clock the game runs on ("system" for the real time, "virtual" for a time that passes only when waiting: a
+     * simulated game of computer players then runs on a single thread, in virtual time; see EventLoop).
+     */
+    public final String clock;
+
+    /**
+     * The seed of all the random choices in the game (the dealer's shuffles and the computer players' key presses)
+     */
+    public final long seed;
+
+    /**
+     * The file the game events are journaled to (empty for no journal)
+     */
+    public final String journalFile;
+
+    /**
+     * The number of milliseconds between forcing the journaled events to the disk
+     */
+    public final long journalFlushMillis;
+
     /**
      * The number of human players in the game.
      */
@@ -81,6 +117,11 @@ public class Config {
      */
     public final long tableDelayMillis;
 
+    /**
+     * The number of milliseconds a computer player waits between rounds of key presses
+     */
+    public final long computerPlayerDelayMillis;
+
     /**
      * The number of milliseconds to pause at the end of the game before closing
      */
@@ -132,6 +173,11 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * The number of times per second the screen is updated (0 to update it directly from the game threads)
+     */
+    public final int frameRate;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -155,7 +201,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -197,11 +243,20 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        precomputeFeatures = Boolean.parseBoolean(properties.getProperty("PrecomputeFeatures", "True"));
+        parallelSearchThreshold = Integer.parseInt(properties.getProperty("ParallelSearchThreshold", "256"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
+        threadMode = properties.getProperty("ThreadMode", "platform").trim().toLowerCase();
+        clock = properties.getProperty("Clock", "system").trim().toLowerCase();
+        String seedProperty = properties.getProperty("Seed", "").trim();
+        seed = seedProperty.isEmpty() ? System.nanoTime() : Long.parseLong(seedProperty);
+        logger.info("random seed: " + seed);
+        journalFile = properties.getProperty("JournalFile", "").trim();
+        journalFlushMillis = (long) (Double.parseDouble(properties.getProperty("JournalFlushSeconds", "1")) * 1000.0);
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
@@ -209,6 +264,7 @@ public class Config {
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
+        computerPlayerDelayMillis = (long) (Double.parseDouble(properties.getProperty("ComputerPlayerDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
         // ui settings
@@ -224,6 +280,7 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        frameRate = Integer.parseInt(properties.getProperty("FrameRate", "60"));
 
         // keyboard input data
         playerKeys = new int[players][rows * columns];
@@ -1,5 +1,7 @@
 package bguspl.set;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
 public class Env {
@@ -8,11 +10,47 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final ThreadFactory threads;
+    public final Clock clock;
+    public final GameJournal journal;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, GameThreads.factory(config, logger), Clock.create(config));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, ThreadFactory threads, Clock clock) {
+        this(logger, config, ui, util, threads, clock, GameJournal.DISABLED);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, ThreadFactory threads, Clock clock,
+               GameJournal journal) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.threads = threads;
+        this.clock = clock;
+        this.journal = journal;
+    }
+
+    /**
+     * The random stream of the dealer (see {@link #random(int)}).
+     */
+    public static final int DEALER_STREAM = 0;
+
+    /**
+     * Creates one of the independent random streams derived from the configured seed. The same stream is created
+     * for the same seed, so the random choices of the game are repeatable, and every thread can own its stream
+     * instead of sharing a single random generator.
+     *
+     * @param stream - the stream number: DEALER_STREAM for the dealer, or 1 + the player id for a player.
+     * @return - a new generator of the stream (not thread safe, should be used by a single thread).
+     */
+    public SplittableRandom random(int stream) {
+        SplittableRandom root = new SplittableRandom(config.seed);
+        SplittableRandom random = root.split();
+        for (int i = 0; i < stream; ++i)
+            random = root.split();
+        return random;
     }
 }
@@ -0,0 +1,289 @@
+package bguspl.set;
+
+import javax.swing.Timer;
+import java.awt.EventQueue;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A user interface that updates another user interface (e.g. the Swing one) in frames, on the event dispatch thread.
+ * <p>
+ * The game threads only add their updates to a lock-free queue, so they never wait for the screen. A Swing timer
+ * drains the queue on the event dispatch thread a configured number of times per second, and passes on only the
+ * final state of everything that changed since the previous frame: the last card of every slot, the tokens that
+ * were placed or removed (a token placed and removed in the same frame is not shown at all), and the last timer,
+ * freeze and score of the frame.
+ */
+public class FrameUserInterface implements UserInterface {
+
+    /**
+     * The kinds of updates.
+     */
+    private static final int PLACE_CARD = 0;
+    private static final int REMOVE_CARD = 1;
+    private static final int PLACE_TOKEN = 2;
+    private static final int REMOVE_TOKEN = 3;
+    private static final int REMOVE_SLOT_TOKENS = 4;
+    private static final int REMOVE_ALL_TOKENS = 5;
+    private static final int COUNTDOWN = 6;
+    private static final int ELAPSED = 7;
+    private static final int FREEZE = 8;
+    private static final int SCORE = 9;
+    private static final int WINNER = 10;
+
+    /**
+     * The token changes of a frame.
+     */
+    private static final byte UNCHANGED = 0;
+    private static final byte PLACED = 1;
+    private static final byte REMOVED = 2;
+
+    /**
+     * An update received from a game thread.
+     */
+    private static class Update {
+        final int kind;
+        final int a;
+        final int b;
+        final long millies;
+        final int[] players;
+
+        Update(int kind, int a, int b, long millies, int[] players) {
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+            this.millies = millies;
+            this.players = players;
+        }
+    }
+
+    /**
+     * The user interface the frames are passed to (on the event dispatch thread only).
+     */
+    private final UserInterface ui;
+
+    /**
+     * The updates received since the last frame.
+     */
+    private final Queue<Update> updates = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The timer of the frames.
+     */
+    private final Timer timer;
+
+    /**
+     * The changes of the current frame (used by the event dispatch thread only).
+     */
+    private final int[] cards;
+    private final boolean[] cardChanged;
+    private final boolean[] slotCleared;
+    private final byte[][] tokens;
+    private final int[] scores;
+    private final boolean[] scoreChanged;
+    private final long[] freezes;
+    private final boolean[] freezeChanged;
+    private long time;
+    private boolean warn;
+    private boolean elapsed;
+    private boolean timeChanged;
+    private int[] winners;
+
+    /**
+     * The class constructor.
+     *
+     * @param ui     - the user interface to update.
+     * @param config - the game configuration (the number of frames per second is its frame rate).
+     */
+    public FrameUserInterface(UserInterface ui, Config config) {
+        this.ui = ui;
+        cards = new int[config.tableSize];
+        cardChanged = new boolean[config.tableSize];
+        slotCleared = new boolean[config.tableSize];
+        tokens = new byte[config.players][config.tableSize];
+        scores = new int[config.players];
+        scoreChanged = new boolean[config.players];
+        freezes = new long[config.players];
+        freezeChanged = new boolean[config.players];
+
+        timer = new Timer(Math.max(1, 1000 / config.frameRate), event -> frame());
+        timer.start();
+    }
+
+    /**
+     * Passes the updates received since the last frame to the user interface. Called on the event dispatch thread.
+     */
+    void frame() {
+        for (Update update = updates.poll(); update != null; update = updates.poll())
+            collect(update);
+
+        for (int slot = 0; slot < cards.length; ++slot) {
+            if (cardChanged[slot]) {
+                if (cards[slot] < 0) ui.removeCard(slot);
+                else ui.placeCard(cards[slot], slot);
+                cardChanged[slot] = false;
+            }
+            if (slotCleared[slot]) {
+                ui.removeTokens(slot);
+                slotCleared[slot] = false;
+            }
+        }
+        for (int player = 0; player < tokens.length; ++player) {
+            for (int slot = 0; slot < cards.length; ++slot) {
+                if (tokens[player][slot] == PLACED) ui.placeToken(player, slot);
+                else if (tokens[player][slot] == REMOVED) ui.removeToken(player, slot);
+                tokens[player][slot] = UNCHANGED;
+            }
+            if (scoreChanged[player]) {
+                ui.setScore(player, scores[player]);
+                scoreChanged[player] = false;
+            }
+            if (freezeChanged[player]) {
+                ui.setFreeze(player, freezes[player]);
+                freezeChanged[player] = false;
+            }
+        }
+        if (timeChanged) {
+            if (elapsed) ui.setElapsed(time);
+            else ui.setCountdown(time, warn);
+            timeChanged = false;
+        }
+        if (winners != null) {
+            ui.announceWinner(winners);
+            winners = null;
+        }
+    }
+
+    /**
+     * Adds an update to the changes of the current frame.
+     *
+     * @param update - the update.
+     */
+    private void collect(Update update) {
+        switch (update.kind) {
+            case PLACE_CARD:
+                cards[update.b] = update.a;
+                cardChanged[update.b] = true;
+                break;
+            case REMOVE_CARD:
+                cards[update.a] = -1;
+                cardChanged[update.a] = true;
+                break;
+            case PLACE_TOKEN:
+                tokens[update.a][update.b] = tokens[update.a][update.b] == REMOVED && !slotCleared[update.b] ? UNCHANGED : PLACED;
+                break;
+            case REMOVE_TOKEN:
+                tokens[update.a][update.b] = tokens[update.a][update.b] == PLACED ? UNCHANGED : REMOVED;
+                break;
+            case REMOVE_SLOT_TOKENS:
+                clearTokens(update.a);
+                break;
+            case REMOVE_ALL_TOKENS:
+                for (int slot = 0; slot < slotCleared.length; ++slot)
+                    clearTokens(slot);
+                break;
+            case COUNTDOWN:
+                time = update.millies;
+                warn = update.a == 1;
+                elapsed = false;
+                timeChanged = true;
+                break;
+            case ELAPSED:
+                time = update.millies;
+                elapsed = true;
+                timeChanged = true;
+                break;
+            case FREEZE:
+                freezes[update.a] = update.millies;
+                freezeChanged[update.a] = true;
+                break;
+            case SCORE:
+                scores[update.a] = update.b;
+                scoreChanged[update.a] = true;
+                break;
+            case WINNER:
+                winners = update.players;
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Removes all the tokens of a slot in the current frame (before the tokens placed in it later in the frame).
+     *
+     * @param slot - the slot.
+     */
+    private void clearTokens(int slot) {
+        slotCleared[slot] = true;
+        for (byte[] playerTokens : tokens)
+            playerTokens[slot] = UNCHANGED;
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        updates.add(new Update(PLACE_CARD, card, slot, 0, null));
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        updates.add(new Update(REMOVE_CARD, slot, 0, 0, null));
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        updates.add(new Update(PLACE_TOKEN, player, slot, 0, null));
+    }
+
+    @Override
+    public void removeTokens() {
+        updates.add(new Update(REMOVE_ALL_TOKENS, 0, 0, 0, null));
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        updates.add(new Update(REMOVE_SLOT_TOKENS, slot, 0, 0, null));
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        updates.add(new Update(REMOVE_TOKEN, player, slot, 0, null));
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        updates.add(new Update(COUNTDOWN, warn ? 1 : 0, 0, millies, null));
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        updates.add(new Update(ELAPSED, 0, 0, millies, null));
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        updates.add(new Update(FREEZE, player, 0, millies, null));
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        updates.add(new Update(SCORE, player, score, 0, null));
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        updates.add(new Update(WINNER, 0, 0, 0, Arrays.copyOf(players, players.length)));
+    }
+
+    /**
+     * Stops the frames, passes the last updates to the user interface and disposes it.
+     */
+    @Override
+    public void dispose() {
+        timer.stop();
+        EventQueue.invokeLater(() -> {
+            frame();
+            ui.dispose();
+        });
+    }
+}
@@ -0,0 +1,400 @@
+package bguspl.set;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * This class writes a compact binary journal of the game events, which can be read back with {@link #read(Path)}.
+ * <p>
+ * Every event is a fixed-size record of RECORD_SIZE bytes: the time (nanoseconds since the journal was opened),
+ * the event type and up to five int arguments (see the event type constants). The file is mapped to memory in
+ * segments, so appending an event (from any thread) only reserves a position with a single atomic increment and
+ * stores the record's fields into the mapped memory; a background thread forces the written records to the disk
+ * periodically, and the file is truncated to the records written when the journal is closed.
+ * <p>
+ * Closing waits for the appends in progress (every append registers itself before checking that the journal is open
+ * and reserving its position), so no record is written after the file is forced and truncated. Where the file cannot
+ * be truncated while its segments are still mapped (e.g. on Windows), it is left padded with zero records, which
+ * {@link #read(Path)} stops at. If a segment cannot be mapped the failure is logged and the journal stops recording.
+ * <p>
+ * The first record is a HEADER. A CLAIM is followed by CLAIM_CARDS records when the claim has more than 3 cards,
+ * and the game ends with a WINNER record per winner followed by END.
+ */
+public class GameJournal implements Closeable {
+
+    /**
+     * The size of a record in bytes: the time (long), the type (int) and five int arguments.
+     */
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * The size of the file segments mapped to memory.
+     */
+    static final int SEGMENT_SIZE = RECORD_SIZE * 32768;
+
+    /**
+     * The version of the journal format, in the HEADER record.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The event types and their arguments.
+     */
+    public static final int HEADER = 1;             // version, table size, players, feature size, feature count
+    public static final int DEAL = 2;               // card, slot
+    public static final int REMOVE = 3;             // slot
+    public static final int TOKEN_PLACE = 4;        // player, slot
+    public static final int TOKEN_REMOVE = 5;       // player, slot
+    public static final int TOKENS_REMOVE_SLOT = 6; // slot
+    public static final int TOKENS_REMOVE_ALL = 7;  // -
+    public static final int CLAIM = 8;              // player, number of cards, first 3 cards
+    public static final int CLAIM_CARDS = 9;        // player, index of the first card, next (up to) 3 cards
+    public static final int VERDICT = 10;           // player, verdict (Claim.Verdict ordinal)
+    public static final int FREEZE = 11;            // player, milliseconds
+    public static final int SCORE = 12;             // player, score
+    public static final int COUNTDOWN = 13;         // milliseconds, 1 iff warning
+    public static final int RESHUFFLE = 14;         // -
+    public static final int WINNER = 15;            // player
+    public static final int END = 16;               // number of winners
+    public static final int ELAPSED = 17;           // milliseconds
+
+    /**
+     * A journal that records nothing.
+     */
+    public static final GameJournal DISABLED = new GameJournal();
+
+    /**
+     * The states of the journal.
+     */
+    private static final int OPEN = 0;
+    private static final int BROKEN = 1;
+    private static final int CLOSED = 2;
+
+    private final boolean enabled;
+    private final FileChannel channel;
+    private final Logger logger;
+    private final long start = System.nanoTime();
+
+    /**
+     * The position (in bytes) of the next record.
+     */
+    private final AtomicLong position = new AtomicLong();
+
+    /**
+     * The mapped segments of the file (replaced by a longer copy when the file grows).
+     */
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * OPEN while records are appended, BROKEN after a segment could not be mapped, and CLOSED.
+     */
+    private final AtomicInteger state = new AtomicInteger(OPEN);
+
+    /**
+     * The number of appends in progress (drained by close before the file is forced and truncated).
+     */
+    private final AtomicInteger appending = new AtomicInteger();
+
+    private GameJournal() {
+        enabled = false;
+        channel = null;
+        logger = null;
+        flusher = null;
+    }
+
+    /**
+     * Creates (or overwrites) a journal file.
+     *
+     * @param path        - the journal file.
+     * @param flushMillis - the number of milliseconds between forcing the written records to the disk.
+     * @param config      - the game configuration (recorded in the header).
+     * @param logger      - the logger to report a failure to.
+     * @throws IOException - if the file could not be created.
+     */
+    public GameJournal(Path path, long flushMillis, Config config, Logger logger) throws IOException {
+        enabled = true;
+        this.logger = logger;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        append(HEADER, VERSION, config.tableSize, config.players, config.featureSize, config.featureCount);
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::force, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal configured for the game.
+     *
+     * @param config - the game configuration.
+     * @param logger - the logger to report a failure to.
+     * @return - the journal, or DISABLED if no journal file is configured or it could not be created.
+     */
+    public static GameJournal open(Config config, Logger logger) {
+        if (config.journalFile.isEmpty()) return DISABLED;
+        try {
+            return new GameJournal(Path.of(config.journalFile), config.journalFlushMillis, config, logger);
+        } catch (IOException e) {
+            logger.severe("could not create the game journal " + config.journalFile + ": " + e);
+            return DISABLED;
+        }
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param type - the event type.
+     */
+    private void append(int type, int a, int b, int c, int d, int e) {
+        if (!enabled) return;
+        appending.incrementAndGet();
+        try {
+            // checked after registering the append, so close either sees it in progress or it sees the journal closed
+            if (state.get() != OPEN) return;
+            long time = System.nanoTime() - start;
+            long at = position.getAndAdd(RECORD_SIZE);
+            int index = (int) (at / SEGMENT_SIZE);
+            MappedByteBuffer[] mapped = segments;
+            if (index >= mapped.length) mapped = map(index);
+            if (mapped == null) return;
+            ByteBuffer segment = mapped[index];
+            int offset = (int) (at % SEGMENT_SIZE);
+            segment.putLong(offset, time);
+            segment.putInt(offset + 12, a);
+            segment.putInt(offset + 16, b);
+            segment.putInt(offset + 20, c);
+            segment.putInt(offset + 24, d);
+            segment.putInt(offset + 28, e);
+            segment.putInt(offset + 8, type);
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Maps the segments of the file up to the given one.
+     *
+     * @param index - the index of the segment needed.
+     * @return - the mapped segments, or null if the file could not be mapped (the journal is then broken).
+     */
+    private synchronized MappedByteBuffer[] map(int index) {
+        MappedByteBuffer[] mapped = segments;
+        if (index < mapped.length) return mapped;
+        if (state.get() != OPEN) return null;
+        try {
+            mapped = Arrays.copyOf(mapped, index + 1);
+            for (int i = segments.length; i <= index; ++i)
+                mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * SEGMENT_SIZE, SEGMENT_SIZE);
+            segments = mapped;
+            return mapped;
+        } catch (IOException e) {
+            if (state.compareAndSet(OPEN, BROKEN))
+                logger.severe("could not map the game journal, no more events are recorded: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Forces the records written so far to the disk.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments)
+            segment.force();
+    }
+
+    /**
+     * @return - the number of records reserved so far (including the header).
+     */
+    public long records() {
+        return position.get() / RECORD_SIZE;
+    }
+
+    /**
+     * @return - true iff a segment of the file could not be mapped, so events are no longer recorded.
+     */
+    public boolean broken() {
+        return state.get() == BROKEN;
+    }
+
+    /**
+     * Waits for the appends in progress, forces the records to the disk, truncates the file to the records written
+     * (or leaves it padded with zero records if it cannot be truncated while mapped) and closes it.
+     * Records appended after the journal is closed are ignored.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!enabled || state.getAndSet(CLOSED) == CLOSED) return;
+        flusher.shutdownNow();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // an append in progress only stores a record (or maps a segment), so the wait is short
+        while (appending.get() > 0) Thread.yield();
+
+        force();
+        segments = new MappedByteBuffer[0];
+        try {
+            channel.truncate(position.get());
+        } catch (IOException e) {
+            logger.warning("could not truncate the game journal, leaving it padded: " + e);
+        }
+        channel.close();
+    }
+
+    public void deal(int card, int slot) {
+        append(DEAL, card, slot, 0, 0, 0);
+    }
+
+    public void remove(int slot) {
+        append(REMOVE, slot, 0, 0, 0, 0);
+    }
+
+    public void tokenPlaced(int player, int slot) {
+        append(TOKEN_PLACE, player, slot, 0, 0, 0);
+    }
+
+    public void tokenRemoved(int player, int slot) {
+        append(TOKEN_REMOVE, player, slot, 0, 0, 0);
+    }
+
+    public void tokensRemoved(int slot) {
+        append(TOKENS_REMOVE_SLOT, slot, 0, 0, 0, 0);
+    }
+
+    public void allTokensRemoved() {
+        append(TOKENS_REMOVE_ALL, 0, 0, 0, 0, 0);
+    }
+
+    public void claim(int player, int[] cards) {
+        append(CLAIM, player, cards.length, card(cards, 0), card(cards, 1), card(cards, 2));
+        for (int i = 3; i < cards.length; i += 3)
+            append(CLAIM_CARDS, player, i, card(cards, i), card(cards, i + 1), card(cards, i + 2));
+    }
+
+    private static int card(int[] cards, int index) {
+        return index < cards.length ? cards[index] : -1;
+    }
+
+    public void verdict(int player, int verdict) {
+        append(VERDICT, player, verdict, 0, 0, 0);
+    }
+
+    public void freeze(int player, long millis) {
+        append(FREEZE, player, (int) Math.min(millis, Integer.MAX_VALUE), 0, 0, 0);
+    }
+
+    public void score(int player, int score) {
+        append(SCORE, player, score, 0, 0, 0);
+    }
+
+    public void countdown(long millis, boolean warn) {
+        append(COUNTDOWN, (int) Math.min(millis, Integer.MAX_VALUE), warn ? 1 : 0, 0, 0, 0);
+    }
+
+    public void elapsed(long millis) {
+        append(ELAPSED, (int) Math.min(millis, Integer.MAX_VALUE), 0, 0, 0, 0);
+    }
+
+    public void reshuffle() {
+        append(RESHUFFLE, 0, 0, 0, 0, 0);
+    }
+
+    public void end(int[] winners) {
+        for (int winner : winners)
+            append(WINNER, winner, 0, 0, 0, 0);
+        append(END, winners.length, 0, 0, 0, 0);
+    }
+
+    /**
+     * A record read from a journal.
+     */
+    public static class Event {
+        public final long time;
+        public final int type;
+        public final int a, b, c, d, e;
+
+        public Event(long time, int type, int a, int b, int c, int d, int e) {
+            this.time = time;
+            this.type = type;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.d = d;
+            this.e = e;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%d] %d: %d %d %d %d %d", time, type, a, b, c, d, e);
+        }
+    }
+
+    /**
+     * Reads the records of a journal file, in the order they were reserved. Reading stops at the end of the file or
+     * at the first record that was reserved but not written (e.g. when the game was killed).
+     *
+     * @param path - the journal file.
+     * @return - an iterator over the events.
+     * @throws IOException - if the file could not be read.
+     */
+    public static Iterator<Event> read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+        }
+        return new Iterator<Event>() {
+            int offset = 0;
+
+            @Override
+            public boolean hasNext() {
+                return offset + RECORD_SIZE <= buffer.limit() && buffer.getInt(offset + 8) != 0;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Event event = new Event(buffer.getLong(offset), buffer.getInt(offset + 8), buffer.getInt(offset + 12),
+                        buffer.getInt(offset + 16), buffer.getInt(offset + 20), buffer.getInt(offset + 24),
+                        buffer.getInt(offset + 28));
+                offset += RECORD_SIZE;
+                return event;
+            }
+        };
+    }
+
+    /**
+     * Reads all the records of a journal file (see {@link #read(Path)}).
+     *
+     * @param path - the journal file.
+     * @return - the events, in order.
+     * @throws IOException - if the file could not be read.
+     */
+    public static List<Event> readAll(Path path) throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (Iterator<Event> it = read(path); it.hasNext(); )
+            events.add(it.next());
+        return events;
+    }
+}
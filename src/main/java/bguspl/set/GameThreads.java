@@ -0,0 +1,36 @@
+package bguspl.set;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * This class creates the thread factory the players and the computer players run on, by the configured thread mode.
+ */
+public class GameThreads {
+
+    /**
+     * The thread mode of platform threads (an OS thread per player and per computer player).
+     */
+    public static final String PLATFORM = "platform";
+
+    /**
+     * The thread mode of virtual threads (all the players share a small pool of OS threads).
+     */
+    public static final String VIRTUAL = "virtual";
+
+    private GameThreads() {}
+
+    /**
+     * Creates the thread factory of the configured thread mode.
+     *
+     * @param config - the game configuration.
+     * @param logger - the logger to report an unknown thread mode to.
+     * @return - a factory of virtual threads if configured, otherwise a factory of platform threads.
+     */
+    public static ThreadFactory factory(Config config, Logger logger) {
+        if (VIRTUAL.equals(config.threadMode)) return Thread.ofVirtual().factory();
+        if (!PLATFORM.equals(config.threadMode))
+            logger.warning("unknown thread mode " + config.threadMode + ", using platform threads");
+        return Thread::new;
+    }
+}
@@ -5,6 +5,7 @@ import bguspl.set.ex.Player;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.util.Arrays;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -43,8 +44,9 @@ class InputManager extends KeyAdapter {
         int keyCode = e.getKeyCode();
         int player = keyMap[keyCode] - 1;
         if (player >= 0){
-            logger.severe("key " + keyCode + " was pressed by player " + (player + 1));
-            players[player].keyPressed(keyToSlot[keyCode]);
+            if (logger.isLoggable(Level.SEVERE))
+                logger.log(Level.SEVERE, "key {0,number,#} was pressed by player {1,number,#}", new Object[]{keyCode, player + 1});
+            if (players[player] != null) players[player].keyPressed(keyToSlot[keyCode]); // null while replaying
         }
     }
 }
@@ -0,0 +1,86 @@
+package bguspl.set;
+
+/**
+ * A user interface that records every update in the game journal before passing it on to another user interface.
+ */
+public class JournalUserInterface implements UserInterface {
+
+    private final GameJournal journal;
+    private final UserInterface ui;
+
+    public JournalUserInterface(GameJournal journal, UserInterface ui) {
+        this.journal = journal;
+        this.ui = ui;
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        journal.deal(card, slot);
+        ui.placeCard(card, slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        journal.remove(slot);
+        ui.removeCard(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        journal.tokenPlaced(player, slot);
+        ui.placeToken(player, slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        journal.allTokensRemoved();
+        ui.removeTokens();
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        journal.tokensRemoved(slot);
+        ui.removeTokens(slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        journal.tokenRemoved(player, slot);
+        ui.removeToken(player, slot);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        journal.countdown(millies, warn);
+        ui.setCountdown(millies, warn);
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        journal.elapsed(millies);
+        ui.setElapsed(millies);
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        journal.freeze(player, millies);
+        ui.setFreeze(player, millies);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        journal.score(player, score);
+        ui.setScore(player, score);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        journal.end(players);
+        ui.announceWinner(players);
+    }
+
+    @Override
+    public void dispose() {
+        ui.dispose();
+    }
+}
@@ -49,6 +49,7 @@ public class Main {
         UserInterface ui = null;
         try {
             ui = new UserInterfaceSwing(logger, config, players);
+            if (config.frameRate > 0) ui = new FrameUserInterface(ui, config);
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
@@ -56,8 +57,10 @@ public class Main {
                 logger.severe("warning: running with human players with no user interface");
         }
         ui = new UserInterfaceDecorator(logger, util, ui);
+        GameJournal journal = GameJournal.open(config, logger);
+        if (journal != GameJournal.DISABLED) ui = new JournalUserInterface(journal, ui);
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, GameThreads.factory(config, logger), Clock.create(config), journal);
 
         // create the game entities
         Table table = new Table(env);
@@ -72,13 +75,18 @@ public class Main {
         try {
             // shutdown stuff
             dealerThread.joinWithLog();
-            if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
+            if (!xButtonPressed && config.endGamePauseMillies > 0) env.clock.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.severe("could not close the game journal: " + e);
+            }
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
@@ -98,7 +106,7 @@ public class Main {
 
         java.util.logging.Logger logger = java.util.logging.Logger.getLogger("SetGameLogger");
         logger.setUseParentHandlers(false);
-        logger.addHandler(handler);
+        logger.addHandler(new AsyncLogHandler(handler));
         setLoggerLevelAndFormat(logger, Level.ALL, "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
 
         return logger;
@@ -109,9 +117,9 @@ public class Main {
         if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
             // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
             @Override
-            public synchronized String format(LogRecord lr) {
+            public String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
+                        lr.getLevel().getLocalizedName(), formatMessage(lr)
                 );
             }
         }));
@@ -0,0 +1,71 @@
+package bguspl.set;
+
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Replayer;
+import bguspl.set.ex.Table;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * This class replays a game journal (see the JournalFile property) on the screen.
+ * Usage: java -cp target/classes bguspl.set.Replay journal [speed] [first event]
+ * (the speed is a multiple of the recorded speed, default 1, or "max" to replay without pauses; the replay seeks to
+ * the first event instantly). The table and the screen are configured by config.properties, like the game, and the
+ * players and the cards by the journal's header.
+ */
+public class Replay {
+
+    /**
+     * The number of events between the replay checkpoints.
+     */
+    private static final int CHECKPOINT_INTERVAL = 1000;
+
+    /**
+     * The replay's main function.
+     *
+     * @param args - the journal file, the speed and the first event.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) throw new IllegalArgumentException("usage: Replay journal [speed] [first event]");
+        double speed = args.length > 1 ? "max".equalsIgnoreCase(args[1]) ? Double.POSITIVE_INFINITY
+                : Double.parseDouble(args[1]) : 1;
+        int first = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        List<GameJournal.Event> journal = GameJournal.readAll(Path.of(args[0]));
+        if (journal.isEmpty() || journal.get(0).type != GameJournal.HEADER)
+            throw new IllegalArgumentException("not a game journal: " + args[0]);
+
+        Logger logger = Logger.getLogger("SetGameReplay");
+        logger.setUseParentHandlers(false);
+        Properties properties = Config.loadProperties("config.properties", logger);
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(journal.get(0).c));
+        properties.setProperty("FeatureSize", Integer.toString(journal.get(0).d));
+        properties.setProperty("FeatureCount", Integer.toString(journal.get(0).e));
+        Config config = new Config(logger, properties);
+
+        UserInterface ui;
+        try {
+            ui = new UserInterfaceSwing(logger, config, new Player[config.players]);
+            if (config.frameRate > 0) ui = new FrameUserInterface(ui, config);
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            System.out.println("cannot create the user interface (" + e.getMessage() + "), replaying without it");
+            ui = new NullUserInterface();
+        }
+        Env env = new Env(logger, config, ui, new UtilImpl(config));
+        Replayer replayer = new Replayer(env, new Table(env), journal, CHECKPOINT_INTERVAL);
+
+        first = Math.min(first, replayer.size());
+        long start = System.nanoTime();
+        replayer.seek(first);
+        replayer.play(speed);
+        System.out.printf("replayed %d events in %.3f s%n", replayer.size() - first, (System.nanoTime() - start) / 1e9);
+        if (config.endGamePauseMillies > 0) env.clock.sleep(config.endGamePauseMillies);
+        ui.dispose();
+    }
+}
@@ -0,0 +1,169 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.EventLoop;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * This class runs games of computer players without a user interface and without artificial delays, as fast as
+ * possible, and reports the number of games, sets and claims per second. Every game is played with its own seed,
+ * derived from the base seed of the simulation, and the seed of each game is reported. On the virtual clock (the
+ * default) a game runs on a single thread (see EventLoop), so a game is played the same way for the same seed; with
+ * Clock=system the dealer and the players run on their own threads.
+ * Usage: java -cp target/classes bguspl.set.Simulator [games] [computer players] [Property=Value ...]
+ * (the properties are the same as in config.properties and override the simulation defaults).
+ */
+public class Simulator {
+
+    /**
+     * The configuration used by the simulation, unless overridden on the command line.
+     */
+    private static final String[][] DEFAULTS = {
+            {"LogLevel", "OFF"},
+            {"HumanPlayers", "0"},
+            {"Hints", "False"},
+            {"Clock", "virtual"},
+            {"TurnTimeoutWarningSeconds", "0"},
+            {"PointFreezeSeconds", "0"},
+            {"PenaltyFreezeSeconds", "0"},
+            {"TableDelaySeconds", "0"},
+            {"ComputerPlayerDelaySeconds", "0"},
+            {"EndGamePauseSeconds", "0"},
+    };
+
+    /**
+     * The statistics of the games played.
+     */
+    private int games;
+    private long sets;
+    private long claims;
+    private long nanos;
+
+    /**
+     * A line per game played, with its seed.
+     */
+    private final List<String> reports = new ArrayList<>();
+
+    /**
+     * The simulation's main function.
+     *
+     * @param args - the number of games (default 10), the number of computer players (default 4) and configuration
+     *               properties overrides (e.g. FeatureCount=5). A Seed property is the base seed the seeds of the
+     *               games are derived from (a different one on every run by default), and a GameSeed property
+     *               plays every game with the given seed (the same game every time, on the virtual clock).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Properties properties = new Properties();
+        for (String[] property : DEFAULTS)
+            properties.setProperty(property[0], property[1]);
+        properties.setProperty("ComputerPlayers", args.length > 1 ? args[1] : "4");
+        for (int i = 2; i < args.length; ++i) {
+            String[] property = args[i].split("=", 2);
+            if (property.length != 2) throw new IllegalArgumentException("expected Property=Value: " + args[i]);
+            properties.setProperty(property[0].trim(), property[1].trim());
+        }
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        String seed = properties.getProperty("Seed", "").trim();
+        long baseSeed = seed.isEmpty() ? System.nanoTime() : Long.parseLong(seed);
+
+        Logger logger = Logger.getLogger("SetGameSimulator");
+        logger.setUseParentHandlers(false);
+
+        Simulator simulator = new Simulator();
+        String gameSeed = properties.getProperty("GameSeed", "").trim();
+        long[] seeds = gameSeeds(baseSeed, games);
+        if (!gameSeed.isEmpty()) Arrays.fill(seeds, Long.parseLong(gameSeed));
+        simulator.play(logger, properties, seeds);
+        System.out.println("base seed: " + baseSeed);
+        simulator.report(System.out::println);
+    }
+
+    /**
+     * Derives the seeds of the games of a simulation, so every game is dealt and played differently, and the seeds
+     * of a simulation are the same for the same base seed.
+     *
+     * @param baseSeed - the seed of the simulation.
+     * @param games    - the number of games.
+     * @return - the seed of every game.
+     */
+    public static long[] gameSeeds(long baseSeed, int games) {
+        SplittableRandom random = new SplittableRandom(baseSeed);
+        long[] seeds = new long[games];
+        for (int game = 0; game < games; ++game)
+            seeds[game] = random.nextLong();
+        return seeds;
+    }
+
+    /**
+     * Plays a game for each seed and adds them to the statistics.
+     *
+     * @param logger     - the game logger.
+     * @param properties - the game configuration properties (the Seed property is replaced by the seed of each game).
+     * @param seeds      - the seeds of the games.
+     */
+    public void play(Logger logger, Properties properties, long[] seeds) throws InterruptedException {
+        Properties game = new Properties();
+        game.putAll(properties);
+        for (long seed : seeds) {
+            game.setProperty("Seed", Long.toString(seed));
+            play(logger, new Config(logger, game));
+        }
+    }
+
+    /**
+     * Plays a single game to its end and adds it to the statistics.
+     *
+     * @param logger - the game logger.
+     * @param config - the game configuration.
+     */
+    public void play(Logger logger, Config config) throws InterruptedException {
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new NullUserInterface(), util);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < config.humanPlayers);
+
+        long start = System.nanoTime();
+        if (EventLoop.supports(env)) {
+            new EventLoop(env, dealer, players).run();
+        } else {
+            Thread dealerThread = new Thread(dealer, "dealer");
+            dealerThread.start();
+            dealerThread.join();
+        }
+        nanos += System.nanoTime() - start;
+
+        ++games;
+        int gameSets = 0;
+        for (Player player : players)
+            gameSets += player.score();
+        sets += gameSets;
+        claims += dealer.claimsChecked();
+        reports.add(String.format("game %d: seed %d, %d sets, %d claims", games, config.seed, gameSets,
+                dealer.claimsChecked()));
+    }
+
+    /**
+     * Reports the statistics of the games played.
+     *
+     * @param out - the consumer of the report lines.
+     */
+    public void report(Consumer<String> out) {
+        reports.forEach(out);
+        double seconds = nanos / 1e9;
+        out.accept(String.format("games: %d in %.3f s (%.2f games/sec)", games, seconds, games / seconds));
+        out.accept(String.format("sets: %d (%.1f sets/sec)", sets, sets / seconds));
+        out.accept(String.format("claims: %d (%.1f claims/sec)", claims, claims / seconds));
+    }
+}
@@ -152,16 +152,21 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             int row = slot / config.columns;
             int column = slot % config.columns;
             grid[row][column] = deck[card];
-            validate();
-            repaint();
+            repaintCell(row, column);
         }
 
         private void removeCard(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
             grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            repaintCell(row, column);
+        }
+
+        /**
+         * Repaints a single cell of the grid (the layout of the panel never changes).
+         */
+        private void repaintCell(int row, int column) {
+            repaint(column * config.cellWidth, row * config.cellHeight, config.cellWidth, config.cellHeight);
         }
 
         private void placeToken(int player, int slot) {
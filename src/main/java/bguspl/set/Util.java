@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -31,6 +32,15 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Finds the card that forms a legal set together with the two given cards.
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the completing card, or -1 if sets are not determined by two cards (feature size other than 3).
+     */
+    int completeSet(int first, int second);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +50,25 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the given array of cards. Large arrays are searched in parallel, and the
+     * result is still the first count sets in the order of {@link #findSets(int[])}, so it is the same on every call.
+     *
+     * @param cards - an array of card ids (without duplicates).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSets(int[] cards, int count);
+
+    /**
+     * Lazily finds the sets in the given array of cards. Each set is only searched for when it is requested, so
+     * callers that stop early (e.g. checking if any set exists) do not pay for the rest of the search.
+     *
+     * @param cards - an array of card ids (without duplicates). Must not be modified while iterating.
+     * @return - an iterator over integer arrays, each one contains the card ids of a legal set.
+     */
+    Iterator<int[]> findSets(int[] cards);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -1,9 +1,14 @@
 package bguspl.set;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.stream.IntStream;
 
 /**
@@ -13,8 +18,70 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of all the cards in the deck (card * featureCount + feature), or null if not precomputed.
+     */
+    private final byte[] features;
+
+    /**
+     * The weight of each feature in a card id (i.e. featureSize ^ (featureCount - 1 - feature)).
+     */
+    private final int[] featureWeights;
+
+    /**
+     * The features of all the cards in the deck packed into one word per card, or null if they do not fit.
+     * Feature i of a card occupies a lane of featureSize bits starting at bit i * featureSize, in which only the bit
+     * of the feature value is set (e.g. value 2 of a feature with 3 values is 100). One-hot lanes are used rather than
+     * the feature values as base-featureSize digits, so OR-ing the cards of a set collects the distinct values of every
+     * feature at once, for any feature size (see testSetPacked). Built whether or not the features are precomputed.
+     */
+    private final long[] packedFeatures;
+
+    /**
+     * Lane masks for packedFeatures: the lowest bit of every lane, the highest bit of every lane and all lane bits.
+     */
+    private final long laneLow;
+    private final long laneHigh;
+    private final long laneFull;
+
     public UtilImpl(Config config) {
         this.config = config;
+
+        featureWeights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            featureWeights[i] = weight;
+
+        if (config.precomputeFeatures && config.featureSize <= Byte.MAX_VALUE + 1) {
+            features = new byte[config.deckSize * config.featureCount];
+            int[] cardFeatures = new int[config.featureCount];
+            for (int card = 0; card < config.deckSize; ++card) {
+                cardToFeatures(card, cardFeatures);
+                for (int i = 0; i < config.featureCount; ++i)
+                    features[card * config.featureCount + i] = (byte) cardFeatures[i];
+            }
+        } else features = null;
+
+        if (config.featureSize >= 2 && config.featureCount * config.featureSize <= Long.SIZE) {
+            long low = 0, high = 0;
+            for (int i = 0; i < config.featureCount; ++i) {
+                low |= 1L << (i * config.featureSize);
+                high |= 1L << (i * config.featureSize + config.featureSize - 1);
+            }
+            laneLow = low;
+            laneHigh = high;
+            laneFull = (high - low) | high;
+
+            packedFeatures = new long[config.deckSize];
+            int[] cardFeatures = new int[config.featureCount];
+            for (int card = 0; card < config.deckSize; ++card) {
+                cardToFeatures(card, cardFeatures);
+                for (int i = 0; i < config.featureCount; ++i)
+                    packedFeatures[card] |= 1L << (i * config.featureSize + cardFeatures[i]);
+            }
+        } else {
+            packedFeatures = null;
+            laneLow = laneHigh = laneFull = 0;
+        }
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -40,6 +107,81 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
+        if (packedFeatures != null && cards.length == config.featureSize) return testSetPacked(cards);
+        if (features != null) return testSetPrecomputed(cards);
+        return testSetBitmask(cards);
+    }
+
+    /**
+     * Checks if an array of exactly featureSize cards forms a legal set using the packed features (SWAR).
+     * OR-ing the cards leaves a single bit in the lanes of sameSame features and all the bits in the lanes of
+     * butDifferent features, so the set is legal iff no lane has both more than one bit and less than all of them.
+     */
+    boolean testSetPacked(int[] cards) {
+        long values = 0;
+        for (int card : cards)
+            values |= packedFeatures[card];
+        long notSame = values & (values - laneLow); // every lane holds a value, so no borrow crosses lanes
+        long notDifferent = values ^ laneFull;
+        return (nonZeroLanes(notSame) & nonZeroLanes(notDifferent)) == 0;
+    }
+
+    /**
+     * Returns a word in which the highest bit of every lane is set iff that lane of the given word is not zero.
+     */
+    private long nonZeroLanes(long word) {
+        long lowBits = laneFull & ~laneHigh;
+        return (((word & lowBits) + lowBits) | word) & laneHigh;
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set using the precomputed features table (no allocations).
+     */
+    boolean testSetPrecomputed(int[] cards) {
+        int featureCount = config.featureCount;
+        if (cards.length == 3) {
+            int first = cards[0] * featureCount, second = cards[1] * featureCount, third = cards[2] * featureCount;
+            for (int i = 0; i < featureCount; ++i) {
+                byte a = features[first + i], b = features[second + i], c = features[third + i];
+                // 3 equal pairs means sameSame, none means butDifferent, exactly 1 means neither
+                int equalPairs = (a == b ? 1 : 0) + (a == c ? 1 : 0) + (b == c ? 1 : 0);
+                if (equalPairs == 1) return false;
+            }
+            return true;
+        }
+        return testSetBitmask(cards);
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set by collecting the values of each feature into a bitmask.
+     * A feature is sameSame iff its mask has at most one bit, and butDifferent iff it has a bit per card, so every
+     * feature is checked in linear time for any number of cards (no allocations).
+     */
+    boolean testSetBitmask(int[] cards) {
+        if (config.featureSize > Long.SIZE) return testSetPairwise(cards);
+        for (int i = 0; i < config.featureCount; ++i) {
+            long values = 0;
+            for (int card : cards)
+                values |= 1L << feature(card, i);
+            int distinct = Long.bitCount(values);
+            boolean sameSame = distinct <= 1, butDifferent = distinct == cards.length;
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a single feature of a card (from the precomputed table if there is one).
+     */
+    private int feature(int card, int feature) {
+        if (features != null) return features[card * config.featureCount + feature];
+        return card / featureWeights[feature] % config.featureSize;
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set by comparing the features of every pair of cards.
+     */
+    boolean testSetPairwise(int[] cards) {
         int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
@@ -64,30 +206,260 @@ public class UtilImpl implements Util {
         return true;
     }
 
+    @Override
+    public int completeSet(int first, int second) {
+        return config.featureSize == 3 ? thirdCard(first, second) : -1;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        return findSets(deck.stream().mapToInt(Integer::intValue).toArray(), count);
+    }
+
+    @Override
+    public List<int[]> findSets(int[] cards, int count) {
+        if (cards.length >= config.parallelSearchThreshold) {
+            int limit = Math.max(count, 1);
+            return new SetSearchTask(cards, positionIndex(cards), 0, cards.length, limit,
+                    new AtomicIntegerArray(cards.length), new AtomicInteger()).invoke();
+        }
+
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        Iterator<int[]> iterator = findSets(cards);
+        while (iterator.hasNext()) {
+            sets.add(iterator.next());
+            if (sets.size() >= count) break;
+        }
+        return sets;
+    }
+
+    @Override
+    public Iterator<int[]> findSets(int[] cards) {
+        return findSets(cards, positionIndex(cards), 0, cards.length);
+    }
+
+    /**
+     * Lazily finds the sets whose first card (by position in the array) is in the given range of positions.
+     */
+    private Iterator<int[]> findSets(int[] cards, int[] position, int from, int to) {
+        if (config.featureSize == 3) return new CompletionIterator(cards, position, from, to);
+        return new CombinationIterator(cards, from, to);
+    }
+
+    /**
+     * Builds an index from a card id to its position in the array (-1 if absent), or null if it is not needed.
+     */
+    private int[] positionIndex(int[] cards) {
+        if (config.featureSize != 3) return null;
+        int[] position = new int[config.deckSize];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < cards.length; ++i)
+            position[cards[i]] = i;
+        return position;
+    }
+
+    /**
+     * Computes the card that forms a legal set with the two given cards (for a feature size of 3 only).
+     * Each feature of the result is (-a-b) mod 3, i.e. the same value if a == b and the remaining value otherwise.
+     */
+    private int thirdCard(int first, int second) {
+        int third = 0;
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= 3) {
+            third += (6 - first % 3 - second % 3) % 3 * weight;
+            first /= 3;
+            second /= 3;
+        }
+        return third;
+    }
+
+    /**
+     * An iterator that searches for the next set only when it is requested.
+     */
+    private abstract static class SetIterator implements Iterator<int[]> {
+
+        private int[] next;
+        private boolean searched;
+
+        /**
+         * Searches for the next set.
+         *
+         * @return - the sorted card ids of the next set, or null if there are no more sets.
+         */
+        protected abstract int[] searchNext();
+
+        @Override
+        public boolean hasNext() {
+            if (!searched) {
+                next = searchNext();
+                searched = true;
             }
+            return next != null;
+        }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        @Override
+        public int[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            searched = false;
+            return next;
+        }
+    }
+
+    /**
+     * Finds sets by completing pairs of cards. With three values per feature, any two cards determine the single card
+     * that completes them to a legal set, so only O(n^2) lookups in a card-to-position index are needed.
+     * The sets are reported in the same order as the CombinationIterator.
+     */
+    private class CompletionIterator extends SetIterator {
+
+        private final int[] cards;
+        private final int[] position;
+        private final int to;
+        private int i, j;
+
+        private CompletionIterator(int[] cards, int[] position, int from, int to) {
+            this.cards = cards;
+            this.position = position;
+            this.to = Math.min(to, cards.length - 2);
+            i = j = from;
+        }
+
+        @Override
+        protected int[] searchNext() {
+            while (i < to) {
+                if (++j >= cards.length - 1) {
+                    j = ++i;
+                    continue;
+                }
+                int k = position[thirdCard(cards[i], cards[j])];
+                if (k > j) { // every set is reported once, from its two lowest positions
+                    int[] set = {cards[i], cards[j], cards[k]};
+                    Arrays.sort(set);
+                    return set;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Finds sets by testing every r-combination of the cards (r being the feature size) in lexicographic order.
+     */
+    private class CombinationIterator extends SetIterator {
+
+        private final int[] cards;
+        private final int[] combination;
+        private final int[] candidate;
+        private final int to;
+
+        private CombinationIterator(int[] cards, int from, int to) {
+            this.cards = cards;
+            this.to = to;
+            combination = new int[config.featureSize];
+            candidate = new int[config.featureSize];
+            for (int i = 0; i < combination.length; ++i)
+                combination[i] = from + i;
+        }
+
+        @Override
+        protected int[] searchNext() {
+            int n = cards.length;
+            int r = combination.length;
+            while (combination[r - 1] < n && combination[0] < to) {
+                for (int i = 0; i < r; ++i)
+                    candidate[i] = cards[combination[i]];
+
+                // generate next combination in lexicographic order
+                int t = r - 1;
+                while (t != 0 && combination[t] == n - r + t) --t;
+                combination[t]++;
+                for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+
+                if (testSet(candidate)) {
+                    int[] set = candidate.clone();
+                    Arrays.sort(set);
+                    return set;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Finds sets in parallel on the fork-join common pool by splitting the range of positions of the first card.
+     * The results of the subtasks are concatenated in order up to count, so the result is the first count sets in
+     * sequential order whatever the timing of the tasks. Every task stops searching once it found count sets of its
+     * own range, or once the tasks of the ranges before it found count sets between them (its sets would not be
+     * used), so a small count is found without searching all the cards.
+     */
+    private class SetSearchTask extends RecursiveTask<List<int[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The number of first card positions below which a task searches sequentially instead of splitting.
+         */
+        private static final int SEQUENTIAL_POSITIONS = 8;
+
+        private final int[] cards;
+        private final int[] position;
+        private final int from;
+        private final int to;
+        private final int count;
+
+        /**
+         * The number of sets found by the sequential task that starts at each position, and by all the tasks.
+         */
+        private final AtomicIntegerArray foundFrom;
+        private final AtomicInteger found;
+
+        private SetSearchTask(int[] cards, int[] position, int from, int to, int count, AtomicIntegerArray foundFrom,
+                              AtomicInteger found) {
+            this.cards = cards;
+            this.position = position;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.foundFrom = foundFrom;
+            this.found = found;
+        }
+
+        /**
+         * Finds the first count sets of the range, in the order of the sequential search: the sets of the left half
+         * come first, and the right half only completes them up to count.
+         */
+        @Override
+        protected List<int[]> compute() {
+            if (to - from > SEQUENTIAL_POSITIONS) {
+                int middle = (from + to) >>> 1;
+                SetSearchTask right = new SetSearchTask(cards, position, middle, to, count, foundFrom, found);
+                right.fork();
+                List<int[]> sets = new SetSearchTask(cards, position, from, middle, count, foundFrom, found).compute();
+                Iterator<int[]> rightSets = right.join().iterator();
+                while (sets.size() < count && rightSets.hasNext())
+                    sets.add(rightSets.next());
+                return sets;
+            }
+
+            LinkedList<int[]> sets = new LinkedList<>();
+            Iterator<int[]> iterator = findSets(cards, position, from, to);
+            while (sets.size() < count && !enoughBefore() && iterator.hasNext()) {
+                sets.add(iterator.next());
+                foundFrom.incrementAndGet(from);
+                found.incrementAndGet();
+            }
+            return sets;
+        }
+
+        /**
+         * @return - true iff the tasks of the positions before this task's range found count sets between them.
+         */
+        private boolean enoughBefore() {
+            if (found.get() < count) return false; // the sum is only computed once it may be enough
+            long before = 0;
+            for (int i = 0; i < from && before < count; ++i)
+                before += foundFrom.get(i);
+            return before >= count;
         }
-        return sets;
     }
 
     public void spin() {
@@ -0,0 +1,74 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock whose time only passes when a thread waits: instead of blocking, a thread that waits moves the time forward
+ * to the end of its wait (unless another thread already moved it further) and returns immediately.
+ * <p>
+ * A game of computer players on a virtual clock is run by an event loop (see bguspl.set.ex.EventLoop), on a single
+ * thread that moves the time to every scheduled step, so the timing rules of the game hold and the game is played the
+ * same way for the same seed. When the game runs on threads instead, the time is shared by all the threads and does
+ * not wait for the threads that are still running: e.g. a freeze or a computer player's delay can end the dealer's
+ * turn early, so the timing rules of the game do not hold and such games are not more deterministic than games on
+ * the system clock.
+ *
+ * @inv currentTimeMillis() never decreases
+ */
+public class VirtualClock implements Clock {
+
+    /**
+     * The current virtual time in milliseconds.
+     */
+    private final AtomicLong now;
+
+    /**
+     * Creates a virtual clock that starts at the current real time.
+     */
+    public VirtualClock() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a virtual clock.
+     *
+     * @param startMillis - the initial time in milliseconds.
+     */
+    public VirtualClock(long startMillis) {
+        now = new AtomicLong(startMillis);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now.get();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (Thread.interrupted()) throw new InterruptedException();
+        advance(millis);
+        Thread.yield(); // lets the other threads act at the new time
+    }
+
+    /**
+     * Takes an item from the queue if there is one, otherwise waits the whole time (i.e. moves the time forward)
+     * without waiting for an item to be added.
+     */
+    @Override
+    public <T> T poll(BlockingQueue<T> queue, long millis) throws InterruptedException {
+        T item = queue.poll();
+        if (item == null) sleep(millis);
+        return item;
+    }
+
+    /**
+     * Moves the time forward, as if the calling thread waited.
+     *
+     * @param millis - the number of milliseconds to wait, from the current time.
+     */
+    public void advance(long millis) {
+        long start = now.get();
+        now.accumulateAndGet(start + Math.max(millis, 0), Math::max);
+    }
+}
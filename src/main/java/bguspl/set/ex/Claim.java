@@ -0,0 +1,131 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This class holds a player's claim that the cards under the player's tokens form a legal set.
+ * It is also the handle through which the dealer answers the claim: the player thread blocks in {@link #await()}
+ * until the dealer calls {@link #complete(Verdict)}, which happens exactly once for every claim that was submitted.
+ */
+public class Claim {
+
+    /**
+     * The dealer's answer to a claim.
+     */
+    public enum Verdict {
+        /**
+         * The cards formed a legal set and were collected by the player.
+         */
+        POINT,
+        /**
+         * The cards did not form a legal set.
+         */
+        PENALTY,
+        /**
+         * The claim could not be checked (e.g. the cards were taken by another player or returned to the deck).
+         */
+        INVALIDATED
+    }
+
+    /**
+     * The id of the player that submitted the claim.
+     */
+    public final int player;
+
+    /**
+     * The slots of the claimed cards.
+     */
+    public final int[] slots;
+
+    /**
+     * The card ids that are claimed to form a set.
+     */
+    public final int[] cards;
+
+    /**
+     * The epochs of the slots when the cards were read (see {@link Table#epochsMatch}).
+     */
+    public final int[] epochs;
+
+    /**
+     * The time (System.nanoTime) the claim was submitted.
+     */
+    public final long submitted;
+
+    /**
+     * The time (System.nanoTime) the claim was answered.
+     */
+    private volatile long completed;
+
+    /**
+     * The dealer's answer (null until the claim is answered).
+     */
+    private volatile Verdict verdict;
+
+    /**
+     * Released when the claim is answered.
+     */
+    private final CountDownLatch answered = new CountDownLatch(1);
+
+    /**
+     * The class constructor.
+     *
+     * @param player - the id of the player that submits the claim.
+     * @param slots  - the slots of the claimed cards.
+     * @param cards  - the card ids that are claimed to form a set.
+     * @param epochs - the epochs of the slots when the cards were read.
+     */
+    public Claim(int player, int[] slots, int[] cards, int[] epochs) {
+        this.player = player;
+        this.slots = slots;
+        this.cards = cards;
+        this.epochs = epochs;
+        this.submitted = System.nanoTime();
+    }
+
+    /**
+     * Answers the claim and releases the player waiting for it. Only the first answer counts.
+     *
+     * @param verdict - the dealer's answer.
+     * @return - true iff this call answered the claim.
+     */
+    public synchronized boolean complete(Verdict verdict) {
+        if (this.verdict != null) return false;
+        completed = System.nanoTime();
+        this.verdict = verdict;
+        answered.countDown();
+        return true;
+    }
+
+    /**
+     * Blocks until the claim is answered.
+     *
+     * @return - the dealer's answer.
+     * @throws InterruptedException - if the waiting thread was interrupted (e.g. when the game is terminated).
+     */
+    public Verdict await() throws InterruptedException {
+        answered.await();
+        return verdict;
+    }
+
+    /**
+     * @return - the dealer's answer, or null if the claim was not answered yet.
+     */
+    public Verdict verdict() {
+        return verdict;
+    }
+
+    /**
+     * @return - the time (System.nanoTime) the claim was answered (undefined if not answered yet).
+     */
+    public long completedAt() {
+        return completed;
+    }
+
+    /**
+     * @return - the number of nanoseconds between the submission and the answer, or -1 if not answered yet.
+     */
+    public long latencyNanos() {
+        return verdict == null ? -1 : completed - submitted;
+    }
+}
@@ -2,12 +2,13 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * This class manages the dealer's threads and data
@@ -26,9 +27,14 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    protected final List<Integer> deck;
+    protected final Deck deck;
+
+    /**
+     * All the sets of the deck, with the number of sets still available in the game (null if not supported).
+     */
+    private final SetCatalogue catalogue;
 
     /**
      * True iff game should be terminated due to an external event.
@@ -42,15 +48,45 @@ public class Dealer implements Runnable {
 
 
     /**
-     * A list that represents the slots
+     * An array that represents the slots (shuffled to place and remove the cards in a random order)
+     */
+    private final int[] slots;
+
+    /**
+     * The dealer's random generator (derived from the game's seed).
      */
-    private LinkedList<Integer> slots = new LinkedList<Integer>();
+    private final SplittableRandom random;
 
 
     /**
-     * A queue for the players to insert their cards to check if its a set
+     * A queue for the players to insert their cards to check if its a set (see {@link #submitClaim}).
      */
-    protected ConcurrentLinkedQueue<int[]> cardsToCheck = new ConcurrentLinkedQueue<int[]>();
+    protected BlockingQueue<Claim> cardsToCheck = new LinkedBlockingQueue<Claim>();
+
+    /**
+     * A claim that was taken from the queue while the dealer was waiting for one (null if none).
+     */
+    private Claim nextClaim;
+
+    /**
+     * The slots taken by the claims accepted so far in the batch being handled.
+     */
+    private final boolean[] claimedSlots;
+
+    /**
+     * The claim latencies and the counters of the game events.
+     */
+    protected final GameMetrics metrics;
+
+    /**
+     * An empty claim that is put in the queue to wake the dealer up (e.g. when the game is terminated).
+     */
+    private static final Claim WAKE_UP = new Claim(-1, new int[0], new int[0], new int[0]);
+
+    /**
+     * The number of milliseconds between countdown updates while the turn timeout warning is displayed.
+     */
+    private static final long WARNING_REFRESH_MILLIS = 10;
 
 
     public Dealer(Env env, Table table, Player[] players) {
@@ -58,9 +94,14 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        for(int i = 0; i < env.config.tableSize; i++){
-            slots.add(i);
+        random = env.random(Env.DEALER_STREAM);
+        deck = new Deck(env.config.deckSize, random.split());
+        claimedSlots = new boolean[env.config.tableSize];
+        metrics = new GameMetrics(players.length);
+        catalogue = SetCatalogue.supports(env.config) ? new SetCatalogue(env) : null;
+        slots = new int[env.config.tableSize];
+        for(int i = 0; i < slots.length; i++){
+            slots[i] = i;
         }
     }
 
@@ -72,22 +113,17 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
+        metrics.register(env.logger);
         for(int i = 0; i < players.length; i++){
-            Thread playerThread = new Thread(players[i]);
+            Thread playerThread = env.threads.newThread(players[i]);
+            playerThread.setName("player-" + players[i].id);
+            players[i].playerThread = playerThread;
             playerThread.start();
         }
         while (!shouldFinish()) {
-            placeCardsOnTable();
             timerLoop();
-            if(!terminate){
-                updateTimerDisplay(true);
-                removeAllCardsFromTable();
-            }
         }
-        if(!terminate){
-            terminate();
-        }
-        announceWinners();
+        endGame();
         for(int i = players.length - 1; i >= 0; i--){
             try {
                 players[i].playerThread.join();
@@ -100,21 +136,68 @@ public class Dealer implements Runnable {
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() {
+        startTurn();
+        while (!turnOver()) {
+            sleepUntilWokenOrTimeout();
+            wakeUp();
+        }
+        endTurn();
+    }
+
+    /**
+     * Deals the cards and starts the countdown of a turn.
+     */
+    protected void startTurn() {
+        placeCardsOnTable();
         synchronized(this){
             stop = false;
         }
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis + 500;
+        reshuffleTime = env.clock.currentTimeMillis() + env.config.turnTimeoutMillis + 500;
         updateTimerDisplay(false);
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
-            sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
-            removeCardsFromTable();
-            placeCardsOnTable();
-            
-        }
+    }
+
+    /**
+     * @return - true iff the turn ended, because the countdown timed out or the game was terminated.
+     */
+    protected boolean turnOver() {
+        return terminate || env.clock.currentTimeMillis() >= reshuffleTime;
+    }
+
+    /**
+     * Handles a wake-up of the dealer during a turn: updates the countdown, checks the pending claims and refills the
+     * table.
+     */
+    protected void wakeUp() {
+        updateTimerDisplay(false);
+        removeCardsFromTable();
+        placeCardsOnTable();
+    }
+
+    /**
+     * Ends a turn: unless the game was terminated, all the cards are returned to the deck.
+     */
+    protected void endTurn() {
         synchronized(this){
             stop = true;
         }
+        if(!terminate){
+            updateTimerDisplay(true);
+            removeAllCardsFromTable();
+            metrics.reshuffles.increment();
+            env.journal.reshuffle();
+        }
+    }
+
+    /**
+     * Ends the game: answers the claims that were not checked and announces the winners.
+     */
+    protected void endGame() {
+        if(!terminate){
+            terminate();
+        }
+        invalidatePendingClaims();
+        env.logger.info("game metrics: " + metrics.getSummary());
+        announceWinners();
     }
 
     /**
@@ -123,9 +206,63 @@ public class Dealer implements Runnable {
     public void terminate() {
         for(int i = players.length - 1; i >= 0; i--){
             players[i].terminate();
-            players[i].playerThread.interrupt();
+            Thread playerThread = players[i].playerThread;
+            if(playerThread != null){ // not started yet, it ends as soon as it starts
+                playerThread.interrupt();
+            }
         }
         terminate = true;
+        cardsToCheck.offer(WAKE_UP);
+    }
+
+    /**
+     * Submits a player's claim to be checked by the dealer.
+     * Every submitted claim is answered, at the dealer's next wake-up: with a point or a penalty once it is checked,
+     * or as invalidated if its cards were taken or returned to the deck, or the game ended before it was checked.
+     *
+     * @param player - the id of the player that submits the claim.
+     * @param slots  - the slots of the claimed cards.
+     * @param cards  - the card ids that are claimed to form a set.
+     * @param epochs - the epochs of the slots when the cards were read.
+     * @return - the claim, to wait on for the dealer's answer.
+     */
+    public Claim submitClaim(int player, int[] slots, int[] cards, int[] epochs) {
+        Claim claim = new Claim(player, slots, cards, epochs);
+        env.journal.claim(player, cards);
+        cardsToCheck.add(claim);
+        if(terminate && claim.complete(Claim.Verdict.INVALIDATED)){ // the dealer may have stopped checking claims
+            answered(claim, Claim.Verdict.INVALIDATED);
+        }
+        return claim;
+    }
+
+    /**
+     * Answers all the claims that were not checked yet as invalidated.
+     */
+    private void invalidatePendingClaims() {
+        List<Claim> claims = new ArrayList<Claim>();
+        Claim waiting = nextClaim;
+        nextClaim = null;
+        if(waiting != null){
+            claims.add(waiting);
+        }
+        cardsToCheck.drainTo(claims);
+        for(Claim claim : claims){
+            if(claim.complete(Claim.Verdict.INVALIDATED)){
+                answered(claim, Claim.Verdict.INVALIDATED);
+            }
+        }
+    }
+
+    /**
+     * Counts the verdict of an answered claim and records it in the game journal.
+     *
+     * @param claim   - the claim answered.
+     * @param verdict - the verdict the claim was answered with.
+     */
+    private void answered(Claim claim, Claim.Verdict verdict) {
+        metrics.count(verdict);
+        env.journal.verdict(claim.player, verdict.ordinal());
     }
 
     /**
@@ -133,89 +270,113 @@ public class Dealer implements Runnable {
      *
      * @return true iff the game should be finished.
      */
-    private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+    protected boolean shouldFinish() {
+        return terminate || !setLeft();
     }
 
     /**
      * Checks cards should be removed from the table and removes them.
+     * All the pending claims are handled together, in the order they were submitted: a claim is accepted if its cards
+     * form a legal set and none of its slots changed since the claim was made or was taken by an earlier claim in the
+     * batch, otherwise it is penalized (not a set) or invalidated (some cards were taken or are no longer on the table).
+     * A claim that was already answered as invalidated when the game was terminated (see {@link #submitClaim}) is
+     * neither accepted nor counted again: an accepted claim is answered before its cards are taken.
      */
-    private void removeCardsFromTable() {
-        if(cardsToCheck.size() > 0 && System.currentTimeMillis() < reshuffleTime){
-            int[] temp = cardsToCheck.remove();
-            int playerId = temp[0];
-            int[] cards = {temp[1], temp[2], temp[3]};
-            Integer [] slots = {table.cardToSlot[cards[0]],table.cardToSlot[cards[1]],table.cardToSlot[cards[2]]};
-            synchronized(table){
-                if(env.util.testSet(cards) && !stop){
-                    stop = true;
-                    updateTimerDisplay(true);
-                    for (Player player: players){
-                        if(player.id != playerId){
-                            player.resetTokens(cards);
-                        }
-                    }
-                    for(int i = 0; i < cards.length; i++){
-                        table.removeToken(playerId, table.cardToSlot[cards[i]]);
-                        table.removeCard(slots[i]);
-                    }
-                    for(int[] cardst : cardsToCheck){
-                        boolean removed = false;
-                        for(int i = 1; i < cardst.length && !removed; i++){
-                            if(cardst[i] == cards[0]){
-                                removed = true;
-                                cardsToCheck.remove(cardst);
-                            }
-                            else if(cardst[i] == cards[1]){
-                                removed = true;
-                                cardsToCheck.remove(cardst);
-                            }
-                            else if(cardst[i] == cards[2]){
-                                removed = true;
-                                cardsToCheck.remove(cardst);
-                            }
-                            if(removed){
-                                synchronized(players[cardst[0]].playerThread){
-                                    players[cardst[0]].playerThread.notify();
-                                }        
-                            }
-                        }
+    protected void removeCardsFromTable() {
+        if(env.clock.currentTimeMillis() >= reshuffleTime){
+            return;
+        }
+        List<Claim> claims = new ArrayList<Claim>();
+        if(nextClaim != null){
+            claims.add(nextClaim);
+            nextClaim = null;
+        }
+        cardsToCheck.drainTo(claims);
+        claims.removeIf(claim -> claim == WAKE_UP);
+        if(claims.isEmpty()){
+            return;
+        }
+        claims.sort(Comparator.comparingLong(claim -> claim.submitted));
+        long taken = System.nanoTime();
+        for(Claim claim : claims){
+            metrics.queueWait.record(taken - claim.submitted);
+        }
+
+        synchronized(table){
+            Claim.Verdict[] verdicts = new Claim.Verdict[claims.size()];
+            List<Claim> accepted = new ArrayList<Claim>();
+            for(int i = 0; i < claims.size(); i++){
+                Claim claim = claims.get(i);
+                boolean available = table.epochsMatch(claim.slots, claim.epochs);
+                for(int slot : claim.slots){
+                    available &= !claimedSlots[slot];
+                }
+                if(!available){
+                    verdicts[i] = Claim.Verdict.INVALIDATED;
+                }
+                else if(env.util.testSet(claim.cards) && !stop){
+                    if(!claim.complete(Claim.Verdict.POINT)){
+                        continue; // already answered, the game was terminated
                     }
-                    players[playerId].setFlag(1);
-                    synchronized(players[playerId].playerThread){
-                        players[playerId].playerThread.notify();
+                    verdicts[i] = Claim.Verdict.POINT;
+                    accepted.add(claim);
+                    for(int slot : claim.slots){
+                        claimedSlots[slot] = true;
                     }
                 }
                 else{
-                    stop = false;
-                    players[playerId].setFlag(2);
-                    synchronized(players[playerId].playerThread){
-                        players[playerId].playerThread.notify();
+                    verdicts[i] = Claim.Verdict.PENALTY;
+                }
+            }
+
+            if(!accepted.isEmpty()){
+                stop = true;
+                updateTimerDisplay(true);
+                for(Claim claim : accepted){
+                    for (Player player: players){
+                        if(player.id != claim.player){
+                            player.resetTokens(claim.cards);
+                        }
+                    }
+                    for(int i = 0; i < claim.slots.length; i++){
+                        claimedSlots[claim.slots[i]] = false;
+                        table.removeToken(claim.player, claim.slots[i]);
+                        table.removeCard(claim.slots[i]);
+                        if(catalogue != null){
+                            catalogue.discard(claim.cards[i]);
+                        }
                     }
                 }
+            }
+            else{
+                stop = false;
+            }
 
-        }
+            for(int i = 0; i < claims.size(); i++){
+                Claim claim = claims.get(i);
+                if(verdicts[i] == Claim.Verdict.POINT || (verdicts[i] != null && claim.complete(verdicts[i]))){
+                    metrics.verification.record(claim.completedAt() - taken);
+                    answered(claim, verdicts[i]);
+                }
+            }
         }
     }
 
     /**
      * Check if any cards can be removed from the deck and placed on the table.
+     * The slots are shuffled only when there are empty slots to fill from the deck, so the dealer's random stream is
+     * used once per refill and not once per wake-up (whose number depends on the timing of the threads).
      */
     private void placeCardsOnTable() {
         synchronized(table){
-            Collections.shuffle(slots);
-            List<Integer> checkIfSetLeft = new LinkedList<Integer>(deck);
-            for(int i = 0; i < env.config.tableSize; i++){
-                if(table.slotToCard[i] != null){
-                    checkIfSetLeft.add(table.slotToCard[i]);
-                }
-            }
-            if(env.util.findSets(checkIfSetLeft, 1).size() != 0){
-                    Collections.shuffle(deck);
+            if(setLeft()){
+                    if(!deck.isEmpty() && table.countCards() < slots.length){
+                        shuffleSlots();
+                    }
                     for(int slot : slots){
-                        if(table.slotToCard[slot] == null){
+                        if(table.cardAt(slot) == Table.NONE){
                             if(!deck.isEmpty()){
-                                table.placeCard(deck.remove(0), slot);
+                                table.placeCard(deck.draw(), slot);
                             }
                             else{
                                 for(Player player: players){
@@ -224,15 +385,10 @@ public class Dealer implements Runnable {
                             }
                         }
                     }
-                    for(Player player: players){
-                        if(player.getFlag() == -1){
-                            player.playerThread.interrupt();
-                        }
-                    }
             }
             else{
                 try {
-                    Thread.sleep(50);
+                    env.clock.sleep(50);
                 } catch (InterruptedException e) {}
                 table.removeAllTokens();
                 terminate();
@@ -242,24 +398,64 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Shuffles the order of the slots (Fisher-Yates, with the dealer's random generator).
      */
-    private void sleepUntilWokenOrTimeout() {
-        if(!terminate && cardsToCheck.isEmpty()){
-            if(reshuffleTime - System.currentTimeMillis() > env.config.turnTimeoutWarningMillis){
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {}
-            }
-            else{
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {}
+    private void shuffleSlots() {
+        for(int i = slots.length - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            int slot = slots[i];
+            slots[i] = slots[j];
+            slots[j] = slot;
+        }
+    }
+
+    /**
+     * Checks if there is a legal set among the cards in the deck and on the table.
+     *
+     * @return true iff at least one set is left in the game.
+     */
+    private boolean setLeft() {
+        if(catalogue != null){
+            return catalogue.remaining() > 0;
+        }
+        if(table.countSets() > 0){
+            return true;
+        }
+        int[] checkIfSetLeft = new int[deck.size() + env.config.tableSize];
+        int cards = deck.copyTo(checkIfSetLeft);
+        for(int i = 0; i < env.config.tableSize; i++){
+            if(table.cardAt(i) != Table.NONE){
+                checkIfSetLeft[cards++] = table.cardAt(i);
             }
         }
-        
+        return env.util.findSets(Arrays.copyOf(checkIfSetLeft, cards)).hasNext();
+    }
 
+    /**
+     * Sleep until a player submits a claim or the countdown display needs to be updated (the next second, or the
+     * next refresh while the warning is displayed), whichever comes first.
+     */
+    private void sleepUntilWokenOrTimeout() {
+        if(!terminate && nextClaim == null && cardsToCheck.isEmpty()){
+            try {
+                nextClaim = env.clock.poll(cardsToCheck, sleepMillis());
+            } catch (InterruptedException e) {}
+        }
+    }
 
+    /**
+     * @return - the number of milliseconds until the countdown display needs to be updated (at least 1).
+     */
+    protected long sleepMillis() {
+        long remaining = reshuffleTime - env.clock.currentTimeMillis();
+        long timeout;
+        if(remaining > env.config.turnTimeoutWarningMillis){
+            timeout = Math.min(remaining % 1000 + 1, remaining - env.config.turnTimeoutWarningMillis);
+        }
+        else{
+            timeout = WARNING_REFRESH_MILLIS;
+        }
+        return Math.max(timeout, 1);
     }
 
     /**
@@ -267,13 +463,13 @@ public class Dealer implements Runnable {
      */
     private void updateTimerDisplay(boolean reset) {
         if(reset){
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis + 999;
+            reshuffleTime = env.clock.currentTimeMillis() + env.config.turnTimeoutMillis + 999;
         }
-        if(reshuffleTime - System.currentTimeMillis() > env.config.turnTimeoutWarningMillis){
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
+        if(reshuffleTime - env.clock.currentTimeMillis() > env.config.turnTimeoutWarningMillis){
+            env.ui.setCountdown(reshuffleTime - env.clock.currentTimeMillis(), false);
         }
         else{
-            env.ui.setCountdown(Math.max(reshuffleTime - System.currentTimeMillis(), 0), true);
+            env.ui.setCountdown(Math.max(reshuffleTime - env.clock.currentTimeMillis(), 0), true);
         }
 
     }
@@ -287,19 +483,22 @@ public class Dealer implements Runnable {
      */
     private void removeAllCardsFromTable() {
         stop = true;
-        cardsToCheck.clear();
+        invalidatePendingClaims();
         env.ui.removeTokens();
-        Collections.shuffle(slots);
+        shuffleSlots();
+        int[] returned = new int[env.config.tableSize];
+        int count = 0;
         for(int slot : slots){
-            if (table.slotToCard[slot] != null){
-                deck.add(table.slotToCard[slot]);
+            if (table.cardAt(slot) != Table.NONE){
+                returned[count++] = table.cardAt(slot);
                 for(Player p : players){
                     p.resetTokens();
                     p.setFlag(-1);
                 }
                 table.removeCard(slot);
             }
-        }    
+        }
+        deck.addAll(returned, count);
     }
 
     /**
@@ -332,7 +531,14 @@ public class Dealer implements Runnable {
         return terminate;
     }
 
-    protected void addToDeck(Integer toAdd){
+    /**
+     * @return - the number of claims checked so far (should be called after the dealer thread finished).
+     */
+    public int claimsChecked(){
+        return (int) (metrics.getSets() + metrics.getPenalties());
+    }
+
+    protected void addToDeck(int toAdd){
         deck.add(toAdd);
     }
 
@@ -0,0 +1,122 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the card ids that are left in the dealer's deck.
+ * The deck is never shuffled as a whole: every draw swaps a random remaining card to the end of the deck and takes
+ * it from there (i.e. a Fisher-Yates shuffle that only performs the steps for the cards actually drawn), so drawing
+ * a card takes O(1) and every remaining card is equally likely to be drawn.
+ *
+ * @inv 0 <= size() <= capacity of the cards array
+ */
+public class Deck {
+
+    /**
+     * The card ids in the deck (only the first size entries are valid).
+     */
+    private int[] cards;
+
+    /**
+     * The number of cards in the deck.
+     */
+    private int size;
+
+    /**
+     * The random generator of the draws.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Creates a full deck, with an unseeded random generator.
+     *
+     * @param deckSize - the total number of cards in the game (the deck will hold the cards 0 to deckSize - 1).
+     */
+    public Deck(int deckSize) {
+        this(deckSize, new SplittableRandom());
+    }
+
+    /**
+     * Creates a full deck.
+     *
+     * @param deckSize - the total number of cards in the game (the deck will hold the cards 0 to deckSize - 1).
+     * @param random   - the random generator of the draws.
+     */
+    public Deck(int deckSize, SplittableRandom random) {
+        cards = new int[deckSize];
+        Arrays.setAll(cards, i -> i);
+        size = deckSize;
+        this.random = random;
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return - true iff there are no cards in the deck.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes a random card from the deck.
+     *
+     * @return - the card id drawn.
+     * @pre - the deck is not empty.
+     * @post - size() is decreased by 1.
+     */
+    public int draw() {
+        int index = random.nextInt(size);
+        int card = cards[index];
+        cards[index] = cards[--size];
+        return card;
+    }
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the card id.
+     * @post - size() is increased by 1.
+     */
+    public void add(int card) {
+        if (size == cards.length) cards = Arrays.copyOf(cards, Math.max(1, size * 2));
+        cards[size++] = card;
+    }
+
+    /**
+     * Returns several cards to the deck at once.
+     *
+     * @param toAdd - an array of card ids.
+     * @param count - the number of cards to return from the beginning of the array.
+     * @post - size() is increased by count.
+     */
+    public void addAll(int[] toAdd, int count) {
+        if (size + count > cards.length) cards = Arrays.copyOf(cards, size + count);
+        System.arraycopy(toAdd, 0, cards, size, count);
+        size += count;
+    }
+
+    /**
+     * Copies the card ids in the deck to the beginning of an array.
+     *
+     * @param destination - an array of at least size() entries.
+     * @return - the number of cards copied.
+     */
+    public int copyTo(int[] destination) {
+        System.arraycopy(cards, 0, destination, 0, size);
+        return size;
+    }
+
+    /**
+     * @return - a new array with the card ids in the deck.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cards, size);
+    }
+}
@@ -0,0 +1,311 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.VirtualClock;
+
+import java.util.PriorityQueue;
+
+/**
+ * This class runs a game of computer players on a single thread, in virtual time: the dealer, the players and their
+ * AIs do not have threads of their own, they are steps that are scheduled at virtual times, and the steps are run one
+ * by one, in the order of their times, moving the virtual clock to the time of every step (so waiting takes no time).
+ * <p>
+ * The steps are the same as in the threaded game: the dealer wakes up when a claim is submitted or the countdown
+ * display needs to be updated, an AI presses keys every ComputerPlayerDelaySeconds (or every millisecond when there is
+ * no delay) and its player handles them right after, and a frozen player is updated every second. Steps at the same
+ * time run in the order they were scheduled. Nothing depends on the timing of threads, so a game is played the same
+ * way every time it is played with the same seed.
+ */
+public class EventLoop {
+
+    /**
+     * The kinds of steps.
+     */
+    private enum Step {
+        /**
+         * The dealer wakes up.
+         */
+        DEALER,
+        /**
+         * A computer player presses keys, and the player handles them.
+         */
+        COMPUTER,
+        /**
+         * A second of a player's freeze passed.
+         */
+        FREEZE
+    }
+
+    /**
+     * A step scheduled at a virtual time.
+     */
+    private static class Event implements Comparable<Event> {
+
+        final long time;
+        final long order;
+        final Step step;
+
+        /**
+         * The player of the step, or the generation of the dealer's wake-up (see {@link #dealerGeneration}).
+         */
+        final long target;
+
+        Event(long time, long order, Step step, long target) {
+            this.time = time;
+            this.order = order;
+            this.step = step;
+            this.target = target;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (time != other.time) return Long.compare(time, other.time);
+            return Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The virtual clock of the game (the clock of the environment object).
+     */
+    private final VirtualClock clock;
+
+    /**
+     * Game entities.
+     */
+    private final Dealer dealer;
+    private final Player[] players;
+
+    /**
+     * The scheduled steps, by time and then by the order they were scheduled in.
+     */
+    private final PriorityQueue<Event> events = new PriorityQueue<Event>();
+
+    /**
+     * The number of steps scheduled so far.
+     */
+    private long scheduled;
+
+    /**
+     * Only the dealer's last scheduled wake-up is run: scheduling an earlier one (when a claim is submitted) makes the
+     * previous one stale.
+     */
+    private long dealerGeneration;
+
+    /**
+     * True iff the dealer is in a turn (between startTurn and endTurn).
+     */
+    private boolean inTurn;
+
+    /**
+     * True iff the dealer ended the game.
+     */
+    private boolean over;
+
+    /**
+     * The claim every player waits for the dealer to answer (null if none).
+     */
+    private final Claim[] waiting;
+
+    /**
+     * The remaining freeze time of every player (see {@link Player#freezeTick}), and whether the freeze is of a point.
+     */
+    private final boolean[] frozen;
+    private final long[] remaining;
+    private final boolean[] point;
+
+    /**
+     * The period of the computer players' key presses, in milliseconds.
+     */
+    private final long period;
+
+    /**
+     * The class constructor.
+     *
+     * @param env     - the environment object (its clock must be a virtual clock).
+     * @param dealer  - the dealer object.
+     * @param players - the players (computer players only).
+     * @throws IllegalArgumentException - if the game is not supported (see {@link #supports}).
+     */
+    public EventLoop(Env env, Dealer dealer, Player[] players) {
+        if (!supports(env)) throw new IllegalArgumentException("an event loop runs computer players on a virtual clock");
+        this.env = env;
+        this.clock = (VirtualClock) env.clock;
+        this.dealer = dealer;
+        this.players = players;
+        waiting = new Claim[players.length];
+        frozen = new boolean[players.length];
+        remaining = new long[players.length];
+        point = new boolean[players.length];
+        period = Math.max(env.config.computerPlayerDelayMillis, 1);
+    }
+
+    /**
+     * Checks if a game can run on an event loop: the players must be computer players (a human player's key presses
+     * come from the user interface thread, in real time) and the clock must be a virtual clock.
+     *
+     * @param env - the environment object.
+     * @return - true iff the game can run on an event loop.
+     */
+    public static boolean supports(Env env) {
+        return env.config.humanPlayers == 0 && env.clock instanceof VirtualClock;
+    }
+
+    /**
+     * Plays the game to its end.
+     */
+    public void run() {
+        dealer.metrics.register(env.logger);
+        scheduleDealer(clock.currentTimeMillis());
+        for (int i = 0; i < players.length; ++i)
+            schedule(clock.currentTimeMillis() + period, Step.COMPUTER, i);
+
+        while (!over && !events.isEmpty()) {
+            Event event = events.poll();
+            clock.advance(event.time - clock.currentTimeMillis());
+            switch (event.step) {
+                case DEALER:
+                    if (event.target == dealerGeneration) dealerWakeUp();
+                    break;
+                case COMPUTER:
+                    computer((int) event.target);
+                    break;
+                case FREEZE:
+                    freezeTick((int) event.target);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * A step of the dealer: handles the wake-up of the current turn, ends the turn if it is over and starts the next
+     * one (or ends the game), and then resumes the players whose claims were answered.
+     */
+    private void dealerWakeUp() {
+        if (inTurn) {
+            dealer.wakeUp();
+            if (dealer.turnOver()) {
+                dealer.endTurn();
+                inTurn = false;
+            }
+        }
+        if (!inTurn) {
+            if (dealer.shouldFinish()) {
+                dealer.endGame();
+                over = true;
+                return;
+            }
+            dealer.startTurn();
+            inTurn = true;
+        }
+        scheduleDealer(clock.currentTimeMillis() + dealer.sleepMillis());
+        for (int i = 0; i < players.length; ++i) {
+            Claim claim = waiting[i];
+            if (claim != null && claim.verdict() != null) {
+                waiting[i] = null;
+                answered(i, claim);
+            }
+        }
+    }
+
+    /**
+     * A step of a computer player: its AI presses keys and the player handles them.
+     */
+    private void computer(int id) {
+        if (dealer.getTerminate()) return;
+        if (waiting[id] == null && !frozen[id]) {
+            players[id].pressKeys();
+            play(id);
+        }
+        schedule(clock.currentTimeMillis() + period, Step.COMPUTER, id);
+    }
+
+    /**
+     * The player handles its key presses, until it submits a claim or has no more key presses to handle.
+     */
+    private void play(int id) {
+        Player player = players[id];
+        while (!dealer.getTerminate()) {
+            Claim claim = player.claim();
+            if (claim != null) {
+                waiting[id] = claim;
+                scheduleDealer(clock.currentTimeMillis());
+                return;
+            }
+            if (player.getFlag() != -1 || !player.handleNextKeyPress()) return;
+        }
+    }
+
+    /**
+     * The player gets the dealer's answer to its claim: a point or a penalty starts a freeze, otherwise the player
+     * plays on.
+     */
+    private void answered(int id, Claim claim) {
+        Player player = players[id];
+        Claim.Verdict verdict = claim.verdict();
+        player.answered(claim, verdict);
+        if (verdict == Claim.Verdict.POINT) {
+            freeze(id, player.pointStarted(), true);
+        }
+        else if (verdict == Claim.Verdict.PENALTY) {
+            freeze(id, player.penaltyStarted(), false);
+        }
+        else {
+            play(id);
+        }
+    }
+
+    /**
+     * Freezes a player, or ends the freeze at once if it is too short.
+     */
+    private void freeze(int id, long millis, boolean isPoint) {
+        point[id] = isPoint;
+        if (millis > 500) {
+            frozen[id] = true;
+            remaining[id] = millis;
+            schedule(clock.currentTimeMillis() + 1000, Step.FREEZE, id);
+        }
+        else {
+            freezeOver(id);
+        }
+    }
+
+    /**
+     * A second of a player's freeze passed.
+     */
+    private void freezeTick(int id) {
+        remaining[id] = players[id].freezeTick(remaining[id]);
+        if (remaining[id] > 500) {
+            schedule(clock.currentTimeMillis() + 1000, Step.FREEZE, id);
+        }
+        else {
+            freezeOver(id);
+        }
+    }
+
+    private void freezeOver(int id) {
+        frozen[id] = false;
+        if (point[id]) {
+            players[id].pointOver();
+        }
+        else {
+            players[id].penaltyOver();
+        }
+        play(id);
+    }
+
+    /**
+     * Schedules the dealer's next wake-up, instead of the one scheduled before.
+     */
+    private void scheduleDealer(long time) {
+        schedule(time, Step.DEALER, ++dealerGeneration);
+    }
+
+    private void schedule(long time, Step step, long target) {
+        events.add(new Event(time, scheduled++, step, target));
+    }
+}
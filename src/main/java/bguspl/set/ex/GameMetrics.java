@@ -0,0 +1,154 @@
+package bguspl.set.ex;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * This class holds the metrics of a game: the latencies of the claims, from the moment a player submits a claim
+ * until it continues playing with the dealer's answer, and counters of the game events.
+ * Everything is recorded without locking, by the dealer and the player threads.
+ * <p>
+ * A claim's latency is split into three parts:
+ * queue wait (submitted until the dealer takes it from the queue), verification (taken until answered) and
+ * response delivery (answered until the player thread wakes up with the answer).
+ * The reaction time of a player is the time from the moment it could play (the start of the game, or the end of its
+ * previous claim and freeze) until it submits a claim.
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+    /**
+     * The name the metrics of the running game are registered under in the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "bguspl.set:type=GameMetrics";
+
+    protected final LatencyHistogram queueWait = new LatencyHistogram();
+    protected final LatencyHistogram verification = new LatencyHistogram();
+    protected final LatencyHistogram responseDelivery = new LatencyHistogram();
+    protected final LatencyHistogram[] reactionTimes;
+
+    protected final LongAdder sets = new LongAdder();
+    protected final LongAdder penalties = new LongAdder();
+    protected final LongAdder invalidatedClaims = new LongAdder();
+    protected final LongAdder reshuffles = new LongAdder();
+
+    /**
+     * The class constructor.
+     *
+     * @param players - the number of players in the game.
+     */
+    public GameMetrics(int players) {
+        reactionTimes = new LatencyHistogram[players];
+        for (int i = 0; i < players; ++i)
+            reactionTimes[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Counts the dealer's answer to a claim.
+     *
+     * @param verdict - the answer.
+     */
+    public void count(Claim.Verdict verdict) {
+        if (verdict == Claim.Verdict.POINT) sets.increment();
+        else if (verdict == Claim.Verdict.PENALTY) penalties.increment();
+        else invalidatedClaims.increment();
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server (replacing the metrics of a previous game, if any).
+     *
+     * @param logger - the logger to report a failure to.
+     */
+    public void register(Logger logger) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException | SecurityException e) {
+            logger.warning("could not register the game metrics: " + e);
+        }
+    }
+
+    @Override
+    public long getSets() {
+        return sets.sum();
+    }
+
+    @Override
+    public long getPenalties() {
+        return penalties.sum();
+    }
+
+    @Override
+    public long getInvalidatedClaims() {
+        return invalidatedClaims.sum();
+    }
+
+    @Override
+    public long getReshuffles() {
+        return reshuffles.sum();
+    }
+
+    @Override
+    public long getClaims() {
+        return getSets() + getPenalties() + getInvalidatedClaims();
+    }
+
+    @Override
+    public long getQueueWaitMeanMicros() {
+        return queueWait.mean() / 1000;
+    }
+
+    @Override
+    public long getQueueWaitP99Micros() {
+        return queueWait.percentile(99) / 1000;
+    }
+
+    @Override
+    public long getVerificationMeanMicros() {
+        return verification.mean() / 1000;
+    }
+
+    @Override
+    public long getVerificationP99Micros() {
+        return verification.percentile(99) / 1000;
+    }
+
+    @Override
+    public long getResponseDeliveryMeanMicros() {
+        return responseDelivery.mean() / 1000;
+    }
+
+    @Override
+    public long getResponseDeliveryP99Micros() {
+        return responseDelivery.percentile(99) / 1000;
+    }
+
+    @Override
+    public String[] getReactionTimes() {
+        String[] summaries = new String[reactionTimes.length];
+        for (int i = 0; i < reactionTimes.length; ++i)
+            summaries[i] = "player " + (i + 1) + ": " + reactionTimes[i];
+        return summaries;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder()
+                .append("claims: ").append(getClaims())
+                .append(" sets: ").append(getSets())
+                .append(" penalties: ").append(getPenalties())
+                .append(" invalidated: ").append(getInvalidatedClaims())
+                .append(" reshuffles: ").append(getReshuffles())
+                .append("\nqueue wait: ").append(queueWait)
+                .append("\nverification: ").append(verification)
+                .append("\nresponse delivery: ").append(responseDelivery);
+        for (String reactionTime : getReactionTimes())
+            summary.append("\nreaction time of ").append(reactionTime);
+        return summary.toString();
+    }
+}
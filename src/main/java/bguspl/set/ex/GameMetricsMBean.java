@@ -0,0 +1,39 @@
+package bguspl.set.ex;
+
+/**
+ * The JMX management interface of the game metrics (see {@link GameMetrics}). All durations are in microseconds.
+ */
+public interface GameMetricsMBean {
+
+    long getSets();
+
+    long getPenalties();
+
+    long getInvalidatedClaims();
+
+    long getReshuffles();
+
+    long getClaims();
+
+    long getQueueWaitMeanMicros();
+
+    long getQueueWaitP99Micros();
+
+    long getVerificationMeanMicros();
+
+    long getVerificationP99Micros();
+
+    long getResponseDeliveryMeanMicros();
+
+    long getResponseDeliveryP99Micros();
+
+    /**
+     * @return - a summary of the reaction times of every player.
+     */
+    String[] getReactionTimes();
+
+    /**
+     * @return - a summary of all the metrics.
+     */
+    String getSummary();
+}
@@ -0,0 +1,146 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class holds the slots pressed by a player that were not handled yet by the player's thread.
+ * It is a bounded ring buffer with a single producer (the thread that generates the key presses: the ui or the AI
+ * thread) and a single consumer (the player thread), so neither side takes a lock: each side only writes its own
+ * position in the buffer, and the consumer parks while the buffer is empty until the producer adds a key press.
+ * The buffer can also be cleared by any thread (e.g. the dealer's): clearing only moves a third position, which both
+ * sides take into account, so the space of the cleared key presses is free for the producer at once, and the consumer
+ * never returns a key press that was cleared before it took it.
+ *
+ * @inv 0 <= size() <= capacity
+ */
+public class KeyPressBuffer {
+
+    /**
+     * The value {@link #poll()} returns when there is no key press to take.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The pressed slots (the entry of position p is at index p % capacity).
+     */
+    private final AtomicIntegerArray slots;
+
+    /**
+     * The position of the next key press to take (written by the consumer only).
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The position the next key press is added at (written by the producer only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The consumer thread, while it is parked waiting for a key press (null otherwise).
+     */
+    private volatile Thread waiting;
+
+    /**
+     * The key presses before this position should be discarded by the consumer (see {@link #clear()}).
+     */
+    private final AtomicLong clearedUpTo = new AtomicLong();
+
+    /**
+     * The class constructor.
+     *
+     * @param capacity - the maximal number of key presses in the buffer.
+     */
+    public KeyPressBuffer(int capacity) {
+        slots = new AtomicIntegerArray(capacity);
+    }
+
+    /**
+     * Adds a key press, unless the buffer is full. Should be called by the producer thread only.
+     *
+     * @param slot - the slot pressed.
+     * @return - true iff the key press was added.
+     */
+    public boolean offer(int slot) {
+        long position = tail.get();
+        if (position - Math.max(head.get(), clearedUpTo.get()) >= slots.length()) return false;
+        slots.set((int) (position % slots.length()), slot);
+        tail.set(position + 1);
+        Thread consumer = waiting;
+        if (consumer != null) LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * Takes the oldest key press, parking until there is one. Should be called by the consumer thread only.
+     *
+     * @return - the slot pressed.
+     * @throws InterruptedException - if the thread was interrupted (or {@link #wakeUp} was called) while waiting.
+     */
+    public int take() throws InterruptedException {
+        while (true) {
+            long position = Math.max(head.get(), clearedUpTo.get());
+            if (position != tail.get()) {
+                int slot = slots.get((int) (position % slots.length()));
+                if (clearedUpTo.get() > position) continue; // cleared (and maybe overwritten) while reading it
+                head.set(position + 1);
+                return slot;
+            }
+            head.set(position); // skips the cleared key presses, if any
+            if (Thread.interrupted()) throw new InterruptedException();
+            waiting = Thread.currentThread();
+            if (position == tail.get()) LockSupport.park(this); // re-checked after publishing
+            waiting = null;
+        }
+    }
+
+    /**
+     * Takes the oldest key press, if there is one, without waiting. Should be called by the consumer thread only.
+     *
+     * @return - the slot pressed, or EMPTY if there is no key press to take.
+     */
+    public int poll() {
+        while (true) {
+            long position = Math.max(head.get(), clearedUpTo.get());
+            if (position == tail.get()) {
+                head.set(position); // skips the cleared key presses, if any
+                return EMPTY;
+            }
+            int slot = slots.get((int) (position % slots.length()));
+            if (clearedUpTo.get() > position) continue; // cleared (and maybe overwritten) while reading it
+            head.set(position + 1);
+            return slot;
+        }
+    }
+
+    /**
+     * Wakes up the consumer if it is waiting for a key press, as if it was interrupted.
+     */
+    public void wakeUp() {
+        Thread consumer = waiting;
+        if (consumer != null) consumer.interrupt();
+    }
+
+    /**
+     * Discards the key presses in the buffer (may be called by any thread). Their space is free for the producer at
+     * once, and they are skipped by the consumer the next time it takes a key press.
+     */
+    public void clear() {
+        clearedUpTo.accumulateAndGet(tail.get(), Math::max);
+    }
+
+    /**
+     * @return - the number of key presses in the buffer (a snapshot, when called by other threads).
+     */
+    public int size() {
+        return (int) (tail.get() - Math.max(head.get(), clearedUpTo.get()));
+    }
+
+    /**
+     * @return - true iff no more key presses can be added.
+     */
+    public boolean isFull() {
+        return size() >= slots.length();
+    }
+}
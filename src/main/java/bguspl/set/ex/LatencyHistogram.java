@@ -0,0 +1,87 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records durations (in nanoseconds) from any number of threads without locking, into buckets of powers
+ * of two: a duration d is counted in bucket floor(log2(d)), so percentiles are reported with a factor 2 precision.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of durations recorded in each bucket.
+     */
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; ++i)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos - the duration in nanoseconds (negative durations are recorded as 0).
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        buckets[Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos | 1)].increment();
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * @return - the number of durations recorded.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return - the average duration in nanoseconds (0 if none was recorded).
+     */
+    public long mean() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : total.sum() / recorded;
+    }
+
+    /**
+     * @return - the longest duration in nanoseconds (0 if none was recorded).
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns an upper bound of a percentile of the durations.
+     *
+     * @param percentile - the percentile (between 0 and 100).
+     * @return - the upper bound (in nanoseconds) of the bucket the percentile falls in, at most max().
+     */
+    public long percentile(double percentile) {
+        long[] counts = new long[buckets.length];
+        long recorded = 0;
+        for (int i = 0; i < counts.length; ++i)
+            recorded += counts[i] = buckets[i].sum();
+        long rank = (long) Math.ceil(recorded * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0)
+                return Math.min(i == Long.SIZE - 1 ? Long.MAX_VALUE : (2L << i) - 1, max());
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50<=%.1fus p99<=%.1fus max=%.1fus", count(), mean() / 1e3,
+                percentile(50) / 1e3, percentile(99) / 1e3, max() / 1e3);
+    }
+}
@@ -2,7 +2,7 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.SplittableRandom;
 
 //import org.omg.PortableServer.THREAD_POLICY_ID;
 
@@ -83,12 +83,27 @@ public class Player implements Runnable {
     private STATUS status;
 
     /**
-     * A queue that always has at most 3 values which are the slots that were pressed by the user
+     * The maximal number of key presses that are waiting to be handled by the player thread.
      */
-    private ConcurrentLinkedQueue<Integer> slotsPressed = new ConcurrentLinkedQueue<Integer>();
+    private static final int KEY_PRESS_CAPACITY = 3;
+
+    /**
+     * A buffer that always has at most 3 values which are the slots that were pressed by the user
+     */
+    private final KeyPressBuffer slotsPressed = new KeyPressBuffer(KEY_PRESS_CAPACITY);
 
     private boolean canPress = true;
 
+    /**
+     * The time (System.nanoTime) from which the player could play, for measuring its reaction time.
+     */
+    private long readySince = System.nanoTime();
+
+    /**
+     * The random generator of the computer player's key presses (derived from the game's seed).
+     */
+    private final SplittableRandom random;
+
     /**
      * The class constructor.
      *
@@ -105,6 +120,7 @@ public class Player implements Runnable {
         this.id = id;
         this.human = human;
         status = STATUS.PLAYING;
+        random = env.random(id + 1);
     }
 
     /**
@@ -115,6 +131,7 @@ public class Player implements Runnable {
         playerThread = Thread.currentThread();
         env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
         if (!human) createArtificialIntelligence();
+        readySince = System.nanoTime();
 
         while (!terminate) {
             if (status == STATUS.POINT){
@@ -123,31 +140,13 @@ public class Player implements Runnable {
             if (status == STATUS.PENALTY){
                 penalty();
             }
-            if(numTokens == 3 && changedAfterWrongSet){
-                changedAfterWrongSet = false;
-                int[] cards = new int[4];
-                cards[0] = id;
-                for (int i = 1; i < cards.length; i++){
-                    if((tokens[i-1] != -1) && (table.slotToCard[tokens[i - 1]] != null)){
-                        cards[i] = table.slotToCard[tokens[i - 1]];
-                    }
-                    else{
-                        tokens[i-1] = -1;
-                        numTokens--;
-                    }
-                }
-                if(numTokens == 3){
-                    synchronized(dealer.cardsToCheck){
-                        dealer.cardsToCheck.add(cards);
-                    }
-                    synchronized(playerThread){
-                        try {
-                            playerThread.wait();
-                        } catch (InterruptedException e) {}
-                    }
-                }
+            Claim claim = claim();
+            if(claim != null){
+                try {
+                    answered(claim, claim.await());
+                } catch (InterruptedException e) {}
             }
-            if(!dealer.stop && status == STATUS.PLAYING){
+            if(!terminate && status == STATUS.PLAYING){
                 addToArray();
             }
         }
@@ -155,35 +154,99 @@ public class Player implements Runnable {
         env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
+    /**
+     * Submits a claim that the cards under the player's 3 tokens form a set, unless they were already claimed (and no
+     * token was removed since). The tokens whose cards were removed from the table are removed first, and then no
+     * claim is submitted.
+     *
+     * @return - the claim submitted, or null if none.
+     */
+    protected Claim claim() {
+        if(numTokens != 3 || !changedAfterWrongSet){
+            return null;
+        }
+        changedAfterWrongSet = false;
+        int[] slots = tokens.clone();
+        int[] cards = new int[slots.length];
+        int[] epochs = new int[slots.length];
+        table.readCards(slots, cards, epochs);
+        for (int i = 0; i < cards.length; i++){
+            if(cards[i] == Table.NONE && tokens[i] != -1){
+                tokens[i] = -1;
+                numTokens--;
+            }
+        }
+        if(numTokens != 3){
+            return null;
+        }
+        Claim claim = dealer.submitClaim(id, slots, cards, epochs);
+        dealer.metrics.reactionTimes[id].record(claim.submitted - readySince);
+        return claim;
+    }
+
+    /**
+     * Called when the dealer answered the player's claim: a point or a penalty is given to the player next.
+     *
+     * @param claim   - the claim answered.
+     * @param verdict - the dealer's answer.
+     */
+    protected void answered(Claim claim, Claim.Verdict verdict) {
+        dealer.metrics.responseDelivery.record(System.nanoTime() - claim.completedAt());
+        readySince = System.nanoTime();
+        if(verdict == Claim.Verdict.POINT){
+            status = STATUS.POINT;
+        }
+        else if(verdict == Claim.Verdict.PENALTY){
+            status = STATUS.PENALTY;
+        }
+    }
+
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
      * key presses. If the queue of key presses is full, the thread waits until it is not full.
      */
     private void createArtificialIntelligence() {
         // note: this is a very very smart AI (!)
-        aiThread = new Thread(() -> {
+        aiThread = env.threads.newThread(() -> {
             env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");            
             while (!terminate) {
-                try {
-                    synchronized (this) { wait(100); }
-                } catch (InterruptedException ignored) {}
-                while(slotsPressed.size() <= 3){
-                    int slot = (int) Math.floor(Math.random()*env.config.tableSize);
-                    if(table.slotToCard[slot] != null){
-                        keyPressed(slot);
-                    }
+                if(env.config.computerPlayerDelayMillis > 0){
+                    try {
+                        env.clock.sleep(env.config.computerPlayerDelayMillis);
+                    } catch (InterruptedException ignored) {}
                 }
+                else{
+                    Thread.yield();
+                }
+                pressKeys();
             }
             env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
+        });
+        aiThread.setName("computer-" + id);
         aiThread.start();
     }
 
+    /**
+     * Generates random key presses of the AI (computer) player, until no more key presses can be added.
+     */
+    protected void pressKeys() {
+        if(table.countCards() == 0){
+            return;
+        }
+        while(!terminate && !slotsPressed.isFull() && status == STATUS.PLAYING && canPress && !dealer.stop){
+            int slot = random.nextInt(env.config.tableSize);
+            if(table.cardAt(slot) != Table.NONE){
+                keyPressed(slot);
+            }
+        }
+    }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
         terminate = true;
+        slotsPressed.wakeUp();
     }
 
     /**
@@ -192,17 +255,46 @@ public class Player implements Runnable {
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        if(status == STATUS.PLAYING && canPress && slotsPressed.size() <= 3 && table.slotToCard[slot] != null && !terminate && !dealer.stop){
-            slotsPressed.add(slot);
+        if(status == STATUS.PLAYING && canPress && table.cardAt(slot) != Table.NONE && !terminate && !dealer.stop){
+            slotsPressed.offer(slot);
         }
     }
 
     /**
-     * This method adds to the array tokens, this array will hold the slots the player pressed on
+     * This method adds to the array tokens, this array will hold the slots the player pressed on.
+     * Waits (without using the CPU) until the user presses a key.
      */
     private void addToArray(){
-        if(!slotsPressed.isEmpty() && !terminate && !dealer.stop){
-            int slot = slotsPressed.remove();
+        int slot;
+        try {
+            slot = slotsPressed.take();
+        } catch (InterruptedException e) {
+            return;
+        }
+        handleKeyPress(slot);
+    }
+
+    /**
+     * Handles the next key press, if there is one, without waiting.
+     *
+     * @return - true iff a key press was handled.
+     */
+    protected boolean handleNextKeyPress(){
+        int slot = slotsPressed.poll();
+        if(slot == KeyPressBuffer.EMPTY){
+            return false;
+        }
+        handleKeyPress(slot);
+        return true;
+    }
+
+    /**
+     * Places a token on the slot pressed, or removes the player's token from it.
+     *
+     * @param slot - the slot pressed.
+     */
+    private void handleKeyPress(int slot){
+        if(!terminate && !dealer.stop){
             boolean removed = false;
             for (int i = 0; i < 3; i++){
                 if(tokens[i] == slot){
@@ -213,7 +305,7 @@ public class Player implements Runnable {
                 }
                 canPress = true;
             }
-            if(!removed && (tokens[0] == -1 || tokens[1] == -1 || tokens[2] == -1) && table.slotToCard[slot] != null && !dealer.stop){
+            if(!removed && (tokens[0] == -1 || tokens[1] == -1 || tokens[2] == -1) && table.cardAt(slot) != Table.NONE && !dealer.stop){
                 int i = 0;
                 while(tokens[i] != -1){
                     i++;
@@ -238,20 +330,83 @@ public class Player implements Runnable {
      * @post - the player's score is updated in the ui.
      */
     public void point() {
-        env.ui.setScore(id, ++score);
-        long i = env.config.pointFreezeMillis;
-        if(i != 0){
-            i += 500;
-            env.ui.setFreeze(id, i);
-        }
-        while (i > 500){
+        freeze(pointStarted());
+        pointOver();
+    }
+
+    /**
+     * Penalize a player and perform other related actions.
+     */
+    public void penalty() {
+        freeze(penaltyStarted());
+        penaltyOver();
+    }
+
+    /**
+     * Waits until the player's freeze is over, updating the freeze display every second.
+     *
+     * @param remaining - the remaining freeze time (see {@link #freezeStarted}).
+     */
+    private void freeze(long remaining) {
+        while (remaining > 500){
             try{
-                Thread.sleep(1000);
+                env.clock.sleep(1000);
             }
             catch(InterruptedException e) {}
-            i = i - 1000;
-            env.ui.setFreeze(id, i);
+            remaining = freezeTick(remaining);
+        }
+    }
+
+    /**
+     * Increases the player's score and starts the freeze of a point.
+     *
+     * @return - the remaining freeze time (see {@link #freezeStarted}).
+     */
+    protected long pointStarted() {
+        env.ui.setScore(id, ++score);
+        return freezeStarted(env.config.pointFreezeMillis);
+    }
+
+    /**
+     * Starts the freeze of a penalty.
+     *
+     * @return - the remaining freeze time (see {@link #freezeStarted}).
+     */
+    protected long penaltyStarted() {
+        return freezeStarted(env.config.penaltyFreezeMillis);
+    }
+
+    /**
+     * Starts a freeze and displays it.
+     *
+     * @param millis - the freeze time.
+     * @return - the remaining freeze time: the freeze is over once it is at most 500, and it decreases by 1000 every
+     *           second (see {@link #freezeTick}).
+     */
+    private long freezeStarted(long millis) {
+        if(millis != 0){
+            millis += 500;
+            env.ui.setFreeze(id, millis);
         }
+        return millis;
+    }
+
+    /**
+     * Called every second of a freeze.
+     *
+     * @param remaining - the remaining freeze time.
+     * @return - the remaining freeze time, a second later.
+     */
+    protected long freezeTick(long remaining) {
+        remaining = remaining - 1000;
+        env.ui.setFreeze(id, remaining);
+        return remaining;
+    }
+
+    /**
+     * Ends the freeze of a point: the player's tokens were taken with the set, and the player plays again.
+     */
+    protected void pointOver() {
         env.ui.setFreeze(id, 0);
         
         tokens[0] = -1;
@@ -261,31 +416,18 @@ public class Player implements Runnable {
         changedAfterWrongSet = true;
         canPress = true;
         status = STATUS.PLAYING;
+        readySince = System.nanoTime();
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
     }
 
     /**
-     * Penalize a player and perform other related actions.
+     * Ends the freeze of a penalty: the player plays again.
      */
-    public void penalty() {
-        long i = env.config.penaltyFreezeMillis;
-        if(i != 0){
-            i += 500;
-            env.ui.setFreeze(id, i);
-        }
-
-        while (i > 500){
-            try{
-                Thread.sleep(1000);
-            }
-            catch(InterruptedException e) {}
-            i = i - 1000;
-            env.ui.setFreeze(id, i);
-        }
-
+    protected void penaltyOver() {
         env.ui.setFreeze(id, 0);
         canPress = true;
         status = STATUS.PLAYING;
+        readySince = System.nanoTime();
 
     }
 
@@ -327,8 +469,8 @@ public class Player implements Runnable {
      */
     public void resetTokens(int[] toRemove){
         for (int j = 0; j < toRemove.length; j++) {
-            if(table.cardToSlot[toRemove[j]] != null){
-                int slot = table.cardToSlot[toRemove[j]];
+            int slot = table.slotOf(toRemove[j]);
+            if(slot != Table.NONE){
                 for(int i = 0; i < tokens.length; i++){
                     if(slot == tokens[i]){
                         tokens[i] = -1;
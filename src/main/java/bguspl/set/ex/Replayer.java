@@ -0,0 +1,342 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.GameJournal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class replays a game journal (see {@link GameJournal}) on a table and the user interface of its environment,
+ * instead of the player and dealer threads: the cards and tokens are placed and removed through the table, and the
+ * rest of the updates (scores, freezes, timer, winners) are passed to the user interface.
+ * <p>
+ * The journal can be played at its recorded speed, at any multiple of it, or the replay can seek instantly to any
+ * event. Seeking does not replay the events from the start: the displayed state of the game (cards, tokens, scores,
+ * freezes, timer and winners) is saved every checkpointInterval events when the replayer is created, so seeking
+ * starts from the nearest checkpoint, computes the target state from at most checkpointInterval events, and updates
+ * the table and the user interface only where the state changed.
+ * <p>
+ * The environment should have no table delay, and its clock is used for the pacing (so a virtual clock replays the
+ * journal instantly at any speed).
+ */
+public class Replayer {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The table the cards and tokens are replayed on.
+     */
+    private final Table table;
+
+    /**
+     * The journal events (without the header).
+     */
+    private final GameJournal.Event[] events;
+
+    /**
+     * The number of events between checkpoints.
+     */
+    private final int checkpointInterval;
+
+    /**
+     * The state after checkpoints[i] * checkpointInterval events.
+     */
+    private final State[] checkpoints;
+
+    /**
+     * The state displayed, i.e. after the first position events.
+     */
+    private State current;
+
+    /**
+     * The number of events replayed.
+     */
+    private int position;
+
+    /**
+     * The class constructor.
+     *
+     * @param env                - the environment of the replay (its user interface is updated).
+     * @param table              - the (empty) table to replay the cards and tokens on.
+     * @param journal            - the journal events (e.g. by GameJournal.readAll).
+     * @param checkpointInterval - the number of events between checkpoints.
+     * @throws IllegalArgumentException - if the journal was recorded with a different table size, number of players or
+     *                                  cards.
+     */
+    public Replayer(Env env, Table table, List<GameJournal.Event> journal, int checkpointInterval) {
+        if (checkpointInterval <= 0) throw new IllegalArgumentException("illegal checkpoint interval: " + checkpointInterval);
+        this.env = env;
+        this.table = table;
+        this.checkpointInterval = checkpointInterval;
+
+        int first = 0;
+        if (!journal.isEmpty() && journal.get(0).type == GameJournal.HEADER) {
+            GameJournal.Event header = journal.get(0);
+            if (header.a != GameJournal.VERSION)
+                throw new IllegalArgumentException("unsupported journal version: " + header.a);
+            if (header.b != env.config.tableSize || header.c != env.config.players)
+                throw new IllegalArgumentException("the journal was recorded with a table of " + header.b
+                        + " slots and " + header.c + " players");
+            if (header.d != env.config.featureSize || header.e != env.config.featureCount)
+                throw new IllegalArgumentException("the journal was recorded with " + header.e + " features of "
+                        + header.d + " values");
+            first = 1;
+        }
+        events = journal.subList(first, journal.size()).toArray(new GameJournal.Event[0]);
+
+        checkpoints = new State[events.length / checkpointInterval + 1];
+        State state = new State(env.config.tableSize, env.config.players);
+        checkpoints[0] = state.copy();
+        for (int i = 0; i < events.length; ++i) {
+            state.apply(events[i]);
+            if ((i + 1) % checkpointInterval == 0) checkpoints[(i + 1) / checkpointInterval] = state.copy();
+        }
+        current = checkpoints[0].copy();
+    }
+
+    /**
+     * @return - the number of events in the journal (without the header).
+     */
+    public int size() {
+        return events.length;
+    }
+
+    /**
+     * @return - the number of events replayed so far.
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Plays the rest of the journal.
+     *
+     * @param speed - the multiple of the recorded speed (e.g. 1 for the recorded speed, 10 for 10x);
+     *                Double.POSITIVE_INFINITY to play without waiting between events.
+     */
+    public void play(double speed) throws InterruptedException {
+        play(speed, events.length);
+    }
+
+    /**
+     * Plays the journal from the current position, one event at a time, with the recorded pauses between the events
+     * divided by the speed.
+     *
+     * @param speed - the multiple of the recorded speed (e.g. 1 for the recorded speed, 10 for 10x);
+     *                Double.POSITIVE_INFINITY to play without waiting between events.
+     * @param until - the number of events replayed to stop at.
+     */
+    public void play(double speed, int until) throws InterruptedException {
+        if (speed <= 0) throw new IllegalArgumentException("illegal speed: " + speed);
+        until = Math.min(until, events.length);
+        if (position >= until) return;
+        long startMillis = env.clock.currentTimeMillis();
+        long startNanos = events[position].time;
+        while (position < until) {
+            GameJournal.Event event = events[position];
+            if (speed != Double.POSITIVE_INFINITY) {
+                long due = startMillis + (long) ((event.time - startNanos) / 1_000_000.0 / speed);
+                long wait = due - env.clock.currentTimeMillis();
+                if (wait > 0) env.clock.sleep(wait);
+            }
+            display(event);
+            current.apply(event);
+            ++position;
+        }
+    }
+
+    /**
+     * Moves the replay to the state after the given number of events, without playing the events in between.
+     *
+     * @param index - the number of events replayed to move to (between 0 and size()).
+     */
+    public void seek(int index) {
+        if (index < 0 || index > events.length) throw new IndexOutOfBoundsException("no event " + index);
+        State target;
+        if (index >= position && index - position < checkpointInterval) {
+            target = current.copy();
+            for (int i = position; i < index; ++i)
+                target.apply(events[i]);
+        } else {
+            int checkpoint = index / checkpointInterval;
+            target = checkpoints[checkpoint].copy();
+            for (int i = checkpoint * checkpointInterval; i < index; ++i)
+                target.apply(events[i]);
+        }
+        show(target);
+        position = index;
+    }
+
+    /**
+     * Passes a single event to the table or the user interface.
+     *
+     * @param event - the event to display.
+     */
+    private void display(GameJournal.Event event) {
+        switch (event.type) {
+            case GameJournal.DEAL:
+                table.placeCard(event.a, event.b);
+                break;
+            case GameJournal.REMOVE:
+                table.removeCard(event.a);
+                break;
+            case GameJournal.TOKEN_PLACE:
+                table.placeToken(event.a, event.b);
+                break;
+            case GameJournal.TOKEN_REMOVE:
+                table.removeToken(event.a, event.b);
+                break;
+            case GameJournal.TOKENS_REMOVE_SLOT:
+                env.ui.removeTokens(event.a);
+                break;
+            case GameJournal.TOKENS_REMOVE_ALL:
+                table.removeAllTokens();
+                break;
+            case GameJournal.FREEZE:
+                env.ui.setFreeze(event.a, event.b);
+                break;
+            case GameJournal.SCORE:
+                env.ui.setScore(event.a, event.b);
+                break;
+            case GameJournal.COUNTDOWN:
+                env.ui.setCountdown(event.a, event.b == 1);
+                break;
+            case GameJournal.ELAPSED:
+                env.ui.setElapsed(event.a);
+                break;
+            case GameJournal.END:
+                env.ui.announceWinner(current.pendingWinners());
+                break;
+            default: // claims, verdicts and reshuffles are not displayed
+        }
+    }
+
+    /**
+     * Updates the table and the user interface from the current state to another state, where they differ.
+     *
+     * @param target - the state to show.
+     */
+    private void show(State target) {
+        for (int slot = 0; slot < target.slotToCard.length; ++slot)
+            if (current.slotToCard[slot] != Table.NONE && current.slotToCard[slot] != target.slotToCard[slot])
+                table.removeCard(slot);
+        for (int slot = 0; slot < target.slotToCard.length; ++slot)
+            if (target.slotToCard[slot] != Table.NONE && current.slotToCard[slot] != target.slotToCard[slot])
+                table.placeCard(target.slotToCard[slot], slot);
+        for (int player = 0; player < target.tokens.length; ++player) {
+            for (int slot = 0; slot < target.slotToCard.length; ++slot) {
+                if (target.tokens[player][slot] && !current.tokens[player][slot]) table.placeToken(player, slot);
+                if (!target.tokens[player][slot] && current.tokens[player][slot]) table.removeToken(player, slot);
+            }
+            if (target.scores[player] != current.scores[player]) env.ui.setScore(player, target.scores[player]);
+            if (target.freezes[player] != current.freezes[player]) env.ui.setFreeze(player, target.freezes[player]);
+        }
+        if (target.timer != current.timer || target.warn != current.warn || target.elapsed != current.elapsed) {
+            if (target.elapsed) env.ui.setElapsed(target.timer);
+            else env.ui.setCountdown(target.timer, target.warn);
+        }
+        if (target.winners != null && !Arrays.equals(target.winners, current.winners))
+            env.ui.announceWinner(target.winners);
+        current = target;
+    }
+
+    /**
+     * The displayed state of the game after some of the journal events.
+     */
+    private static class State {
+        final int[] slotToCard;
+        final boolean[][] tokens;
+        final int[] scores;
+        final long[] freezes;
+        long timer;
+        boolean warn;
+        boolean elapsed;
+        List<Integer> winnersSoFar = new ArrayList<>();
+        int[] winners;
+
+        State(int tableSize, int players) {
+            slotToCard = new int[tableSize];
+            Arrays.fill(slotToCard, Table.NONE);
+            tokens = new boolean[players][tableSize];
+            scores = new int[players];
+            freezes = new long[players];
+        }
+
+        private State(State other) {
+            slotToCard = other.slotToCard.clone();
+            tokens = new boolean[other.tokens.length][];
+            Arrays.setAll(tokens, player -> other.tokens[player].clone());
+            scores = other.scores.clone();
+            freezes = other.freezes.clone();
+            timer = other.timer;
+            warn = other.warn;
+            elapsed = other.elapsed;
+            winnersSoFar = new ArrayList<>(other.winnersSoFar);
+            winners = other.winners;
+        }
+
+        State copy() {
+            return new State(this);
+        }
+
+        /**
+         * @return - the winners recorded before the END event that was not applied yet.
+         */
+        int[] pendingWinners() {
+            return winnersSoFar.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        void apply(GameJournal.Event event) {
+            switch (event.type) {
+                case GameJournal.DEAL:
+                    slotToCard[event.b] = event.a;
+                    break;
+                case GameJournal.REMOVE:
+                    slotToCard[event.a] = Table.NONE;
+                    break;
+                case GameJournal.TOKEN_PLACE:
+                    tokens[event.a][event.b] = true;
+                    break;
+                case GameJournal.TOKEN_REMOVE:
+                    tokens[event.a][event.b] = false;
+                    break;
+                case GameJournal.TOKENS_REMOVE_SLOT:
+                    for (boolean[] playerTokens : tokens)
+                        playerTokens[event.a] = false;
+                    break;
+                case GameJournal.TOKENS_REMOVE_ALL:
+                    for (boolean[] playerTokens : tokens)
+                        Arrays.fill(playerTokens, false);
+                    break;
+                case GameJournal.FREEZE:
+                    freezes[event.a] = event.b;
+                    break;
+                case GameJournal.SCORE:
+                    scores[event.a] = event.b;
+                    break;
+                case GameJournal.COUNTDOWN:
+                    timer = event.a;
+                    warn = event.b == 1;
+                    elapsed = false;
+                    break;
+                case GameJournal.ELAPSED:
+                    timer = event.a;
+                    elapsed = true;
+                    break;
+                case GameJournal.WINNER:
+                    winnersSoFar.add(event.a);
+                    break;
+                case GameJournal.END:
+                    winners = pendingWinners();
+                    winnersSoFar.clear();
+                    break;
+                default:
+            }
+        }
+    }
+}
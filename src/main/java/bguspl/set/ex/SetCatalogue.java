@@ -0,0 +1,136 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This class holds every legal set of the deck and counts how many of them are still available in the game
+ * (i.e. none of their cards was collected yet), so the dealer can tell if the game is over in O(1).
+ * It is used by the dealer thread only.
+ *
+ * @inv 0 <= remaining() <= size()
+ */
+public class SetCatalogue {
+
+    /**
+     * The largest deck a catalogue is built for (the number of sets grows quadratically with the deck size).
+     */
+    private static final int MAX_DECK_SIZE = 2187;
+
+    /**
+     * The card ids of all the sets, one set after the other (cardsPerSet ids each).
+     */
+    private final int[] setCards;
+
+    /**
+     * The number of cards in each set.
+     */
+    private final int cardsPerSet;
+
+    /**
+     * Mapping between a card and the indices of the sets it is part of.
+     */
+    private final int[][] setsOfCard;
+
+    /**
+     * True iff the set at that index is no longer available.
+     */
+    private final boolean[] setDiscarded;
+
+    /**
+     * True iff the card was collected and left the game.
+     */
+    private final boolean[] cardDiscarded;
+
+    /**
+     * The number of sets that are still available.
+     */
+    private int remaining;
+
+    /**
+     * Checks if a catalogue can be built for the given configuration. Sets must be determined by pairs of cards
+     * (feature size 3) for the catalogue to be built in O(deckSize^2), and the deck must not be too large.
+     *
+     * @param config - the game configuration.
+     * @return - true iff a catalogue can be built.
+     */
+    public static boolean supports(Config config) {
+        return config.featureSize == 3 && config.deckSize <= MAX_DECK_SIZE;
+    }
+
+    /**
+     * Builds the catalogue of all the sets in the deck.
+     *
+     * @param env - the game environment object.
+     */
+    public SetCatalogue(Env env) {
+        List<int[]> sets = env.util.findSets(IntStream.range(0, env.config.deckSize).toArray(), Integer.MAX_VALUE);
+        cardsPerSet = env.config.featureSize;
+        setCards = new int[sets.size() * cardsPerSet];
+        int[] setsPerCard = new int[env.config.deckSize];
+        int index = 0;
+        for (int[] set : sets)
+            for (int card : set) {
+                setCards[index++] = card;
+                ++setsPerCard[card];
+            }
+
+        setsOfCard = new int[env.config.deckSize][];
+        for (int card = 0; card < setsOfCard.length; ++card)
+            setsOfCard[card] = new int[setsPerCard[card]];
+        for (int set = 0; set < sets.size(); ++set)
+            for (int i = 0; i < cardsPerSet; ++i) {
+                int card = setCards[set * cardsPerSet + i];
+                setsOfCard[card][setsOfCard[card].length - setsPerCard[card]--] = set;
+            }
+
+        setDiscarded = new boolean[sets.size()];
+        cardDiscarded = new boolean[env.config.deckSize];
+        remaining = sets.size();
+    }
+
+    /**
+     * Marks a card as collected, so that every set it is part of is no longer available.
+     *
+     * @param card - the card id.
+     * @post - remaining() is decreased by the number of available sets the card was part of.
+     */
+    public void discard(int card) {
+        if (cardDiscarded[card]) return;
+        cardDiscarded[card] = true;
+        for (int set : setsOfCard[card])
+            if (!setDiscarded[set]) {
+                setDiscarded[set] = true;
+                --remaining;
+            }
+    }
+
+    /**
+     * @return - the number of sets whose cards are all still in the deck or on the table.
+     */
+    public int remaining() {
+        return remaining;
+    }
+
+    /**
+     * @return - the total number of sets in the deck.
+     */
+    public int size() {
+        return setDiscarded.length;
+    }
+
+    /**
+     * Returns the card ids of a set in the catalogue.
+     *
+     * @param set - the index of the set.
+     * @return - the (sorted) card ids of the set.
+     */
+    public int[] cardsOf(int set) {
+        int[] cards = new int[cardsPerSet];
+        System.arraycopy(setCards, set * cardsPerSet, cards, 0, cardsPerSet);
+        return cards;
+    }
+}
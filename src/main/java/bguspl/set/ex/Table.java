@@ -2,46 +2,81 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 /**
  * This class contains the data that is visible to the player.
+ * The slot/card mappings are written only while holding the table's lock, and may be read by any thread without it:
+ * every entry is read and written atomically (so a single read always returns a card that was really placed in the
+ * slot, or NONE), and every write is surrounded by two increments of a sequence number (a seqlock), so readers that
+ * need several entries to be consistent with each other can detect a concurrent write and read again.
+ * Every slot also has an epoch that is incremented whenever a card is placed in or removed from it, so a slot that
+ * still has the epoch it had when it was read still holds the same card.
  *
  * @inv slotToCard[x] == y iff cardToSlot[y] == x
  */
 public class Table {
 
+    /**
+     * The value of an entry in slotToCard / cardToSlot when the slot is empty / the card is not on the table.
+     */
+    public static final int NONE = -1;
+
     /**
      * The game environment object.
      */
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * Mapping between a slot and the card placed in it (NONE if none).
+     */
+    protected final AtomicIntegerArray slotToCard; // card per slot (if any)
+
+    /**
+     * Mapping between a card and the slot it is in (NONE if none).
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    protected final AtomicIntegerArray cardToSlot; // slot per card (if any)
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * The number of times a card was placed in or removed from each slot.
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    protected final AtomicIntegerArray slotEpochs;
+
+    /**
+     * The seqlock sequence number: odd while the mappings are being written, incremented again when done.
+     * Only incremented while holding the table's lock, so the increments do not need to be atomic.
+     */
+    private volatile int version;
+
+    /**
+     * The legal sets formed by the cards currently on the table (the card ids of each set are sorted).
+     * Updated on every card placement and removal, only by looking at the sets that involve the moved card.
+     */
+    private final List<int[]> setsOnTable = new ArrayList<>();
 
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (NONE if none). The array is copied.
+     * @param cardToSlot - mapping between a card and the slot it is in (NONE if none). The array is copied.
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
 
         this.env = env;
-        this.slotToCard = slotToCard;
-        this.cardToSlot = cardToSlot;
+        this.slotToCard = new AtomicIntegerArray(slotToCard);
+        this.cardToSlot = new AtomicIntegerArray(cardToSlot);
+        this.slotEpochs = new AtomicIntegerArray(slotToCard.length);
+
+        // the sets among the cards the table starts with
+        int[] cards = Arrays.stream(slotToCard).filter(card -> card != NONE).toArray();
+        if (cards.length > 0) setsOnTable.addAll(env.util.findSets(cards, Integer.MAX_VALUE));
     }
 
     /**
@@ -51,17 +86,22 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, emptyMapping(env.config.tableSize), emptyMapping(env.config.deckSize));
+    }
+
+    private static int[] emptyMapping(int length) {
+        int[] mapping = new int[length];
+        Arrays.fill(mapping, NONE);
+        return mapping;
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        sets().forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
+            List<Integer> slots = Arrays.stream(set).mapToObj(cardToSlot::get).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
             System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
         });
@@ -74,12 +114,179 @@ public class Table {
      */
     public int countCards() {
         int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
+        for (int slot = 0; slot < slotToCard.length(); ++slot)
+            if (slotToCard.get(slot) != NONE)
                 ++cards;
         return cards;
     }
 
+    /**
+     * Returns the card in a slot (may be called without holding the table's lock).
+     *
+     * @param slot - the slot.
+     * @return - the card id in the slot, or NONE if the slot is empty.
+     */
+    public int cardAt(int slot) {
+        return slotToCard.get(slot);
+    }
+
+    /**
+     * Returns the slot of a card (may be called without holding the table's lock).
+     *
+     * @param card - the card id.
+     * @return - the slot the card is in, or NONE if the card is not on the table.
+     */
+    public int slotOf(int card) {
+        return cardToSlot.get(card);
+    }
+
+    /**
+     * Reads the cards in several slots, all at the same point in time (may be called without holding the table's lock).
+     *
+     * @param slots - the slots to read (NONE entries are allowed).
+     * @param cards - an array (of the same length) to which the card ids in the slots are written (NONE if empty).
+     * @return - true iff all the slots hold cards.
+     */
+    public boolean readCards(int[] slots, int[] cards) {
+        return readCards(slots, cards, null);
+    }
+
+    /**
+     * Reads the cards in several slots and the epochs of the slots, all at the same point in time (may be called
+     * without holding the table's lock).
+     *
+     * @param slots  - the slots to read (NONE entries are allowed).
+     * @param cards  - an array (of the same length) to which the card ids in the slots are written (NONE if empty).
+     * @param epochs - an array (of the same length) to which the epochs of the slots are written, or null.
+     * @return - true iff all the slots hold cards.
+     */
+    public boolean readCards(int[] slots, int[] cards, int[] epochs) {
+        boolean full;
+        int start;
+        do {
+            start = awaitStableVersion();
+            full = true;
+            for (int i = 0; i < slots.length; ++i) {
+                cards[i] = slots[i] == NONE ? NONE : slotToCard.get(slots[i]);
+                full &= cards[i] != NONE;
+                if (epochs != null) epochs[i] = slots[i] == NONE ? NONE : slotEpochs.get(slots[i]);
+            }
+        } while (version != start);
+        return full;
+    }
+
+    /**
+     * Checks that none of several slots changed since their epochs were read (should be called while holding the
+     * table's lock, for the answer to remain true).
+     *
+     * @param slots  - the slots.
+     * @param epochs - the epochs read for the slots.
+     * @return - true iff every slot still has the epoch that was read, i.e. still holds the same card.
+     */
+    public boolean epochsMatch(int[] slots, int[] epochs) {
+        for (int i = 0; i < slots.length; ++i)
+            if (slots[i] == NONE || slotEpochs.get(slots[i]) != epochs[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Checks the class invariant on all slots and cards, at a single point in time.
+     *
+     * @return - true iff slotToCard[x] == y iff cardToSlot[y] == x.
+     */
+    protected boolean invariantHolds() {
+        boolean holds;
+        int start;
+        do {
+            start = awaitStableVersion();
+            holds = true;
+            for (int slot = 0; slot < slotToCard.length(); ++slot) {
+                int card = slotToCard.get(slot);
+                holds &= card == NONE || cardToSlot.get(card) == slot;
+            }
+            for (int card = 0; card < cardToSlot.length(); ++card) {
+                int slot = cardToSlot.get(card);
+                holds &= slot == NONE || slotToCard.get(slot) == card;
+            }
+        } while (version != start);
+        return holds;
+    }
+
+    /**
+     * Spins until no write to the mappings is in progress.
+     *
+     * @return - the (even) sequence number read.
+     */
+    private int awaitStableVersion() {
+        int current;
+        while (((current = version) & 1) != 0)
+            Thread.yield();
+        return current;
+    }
+
+    /**
+     * Count the number of legal sets currently on the table.
+     *
+     * @return - the number of sets on the table.
+     */
+    public synchronized int countSets() {
+        return setsOnTable.size();
+    }
+
+    /**
+     * Returns the legal sets currently on the table.
+     *
+     * @return - a copy of the list of sets on the table, each one contains the (sorted) card ids of the set.
+     */
+    public synchronized List<int[]> sets() {
+        return new ArrayList<>(setsOnTable);
+    }
+
+    /**
+     * Adds the sets formed by a card that was just placed and the other cards on the table.
+     * With three values per feature each other card determines the single completing card, so this takes
+     * O(tableSize). Otherwise, the sets on the table are searched for again.
+     * @param card - the card that was placed.
+     */
+    private void addSetsOf(int card) {
+        if (env.config.featureSize != 3) {
+            int[] cards = IntStream.range(0, slotToCard.length()).map(slotToCard::get).filter(c -> c != NONE).toArray();
+            setsOnTable.clear();
+            setsOnTable.addAll(env.util.findSets(cards, Integer.MAX_VALUE));
+            return;
+        }
+        for (int slot = 0; slot < slotToCard.length(); ++slot) {
+            int other = slotToCard.get(slot);
+            if (other == NONE || other == card) continue;
+            int third = env.util.completeSet(card, other);
+            if (third > other && cardToSlot.get(third) != NONE) { // every set is added once, from its two lower cards
+                int[] set = {card, other, third};
+                Arrays.sort(set);
+                setsOnTable.add(set);
+            }
+        }
+    }
+
+    /**
+     * Removes the sets that include a card that is about to be removed.
+     * @param card - the card that is removed.
+     */
+    private void removeSetsOf(int card) {
+        setsOnTable.removeIf(set -> Arrays.stream(set).anyMatch(c -> c == card));
+    }
+
+    /**
+     * Sleeps for the configured table delay (if any).
+     */
+    private void delay() {
+        if (env.config.tableDelayMillis > 0) {
+            try {
+                env.clock.sleep(env.config.tableDelayMillis);
+            } catch (InterruptedException ignored) {}
+        }
+    }
+
     /**
      * Places a card on the table in a grid slot.
      * @param card - the card id to place in the slot.
@@ -88,12 +295,21 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        delay();
         
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
+        synchronized(this){
+            version++;
+            int replaced = slotToCard.get(slot);
+            if(replaced != NONE){
+                removeSetsOf(replaced);
+                cardToSlot.set(replaced, NONE);
+            }
+            cardToSlot.set(card, slot);
+            slotToCard.set(slot, card);
+            slotEpochs.incrementAndGet(slot);
+            version++;
+            addSetsOf(card);
+        }
 
         env.ui.placeCard(card, slot);
     }
@@ -103,13 +319,16 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        delay();
         synchronized(this){
-            if(slotToCard[slot] != null){
-                cardToSlot[slotToCard[slot]] = null;
-                slotToCard[slot] = null;
+            int card = slotToCard.get(slot);
+            if(card != NONE){
+                removeSetsOf(card);
+                version++;
+                cardToSlot.set(card, NONE);
+                slotToCard.set(slot, NONE);
+                slotEpochs.incrementAndGet(slot);
+                version++;
             }
             env.ui.removeCard(slot);
         }
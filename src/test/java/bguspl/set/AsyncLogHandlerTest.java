@@ -0,0 +1,80 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogHandlerTest {
+
+    /**
+     * A handler that formats the records it gets (like a FileHandler does), optionally waiting before the first one.
+     */
+    static class CapturingHandler extends Handler {
+        final List<String> messages = new ArrayList<>();
+        final List<String> threads = new ArrayList<>();
+        CountDownLatch gate = new CountDownLatch(0);
+
+        @Override
+        public void publish(LogRecord record) {
+            try {
+                gate.await();
+            } catch (InterruptedException ignored) {}
+            synchronized (this) {
+                messages.add(getFormatter().formatMessage(record));
+                threads.add(Thread.currentThread().getName());
+            }
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
+    @Test
+    void publish_FormatsTheRecordsInOrderOnTheBackgroundThread() {
+        CapturingHandler target = new CapturingHandler();
+        AsyncLogHandler handler = new AsyncLogHandler(target);
+        handler.setFormatter(new SimpleFormatter());
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+
+        for (int i = 0; i < 100; ++i)
+            logger.log(Level.SEVERE, "placing card {0,number,#} in slot {1,number,#}", new Object[]{1000 + i, i % 12});
+        handler.flush();
+
+        assertEquals(100, target.messages.size());
+        assertEquals("placing card 1000 in slot 0", target.messages.get(0));
+        assertEquals("placing card 1099 in slot 3", target.messages.get(99));
+        assertTrue(target.threads.stream().allMatch("log-writer"::equals));
+        handler.close();
+    }
+
+    @Test
+    void publish_DropsRecordsInsteadOfBlockingWhenFull() {
+        CapturingHandler target = new CapturingHandler();
+        target.gate = new CountDownLatch(1);
+        AsyncLogHandler handler = new AsyncLogHandler(target, 4);
+        handler.setFormatter(new SimpleFormatter());
+
+        for (int i = 0; i < 20; ++i)
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        assertTrue(handler.dropped() >= 20 - 4 - 1, "dropped " + handler.dropped());
+
+        target.gate.countDown();
+        handler.close();
+        assertTrue(target.messages.stream().anyMatch(message -> message.startsWith("log buffer full, dropped")));
+    }
+}
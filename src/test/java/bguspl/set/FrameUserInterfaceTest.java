@@ -0,0 +1,147 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.EventQueue;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameUserInterfaceTest {
+
+    /**
+     * A user interface that records the updates it gets, and whether they were all on the event dispatch thread.
+     */
+    static class RecordingUserInterface extends NullUserInterface {
+        final List<String> updates = new ArrayList<>();
+        volatile boolean onlyOnDispatchThread = true;
+        volatile boolean disposed;
+
+        private void record(String update) {
+            onlyOnDispatchThread &= EventQueue.isDispatchThread();
+            synchronized (updates) {
+                updates.add(update);
+            }
+        }
+
+        @Override
+        public void placeCard(int card, int slot) {
+            record("placeCard " + card + " " + slot);
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            record("removeCard " + slot);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            record("placeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+            record("removeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void removeTokens(int slot) {
+            record("removeTokens " + slot);
+        }
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {
+            record("setCountdown " + millies + " " + warn);
+        }
+
+        @Override
+        public void setScore(int player, int score) {
+            record("setScore " + player + " " + score);
+        }
+
+        @Override
+        public void dispose() {
+            record("dispose");
+            disposed = true;
+        }
+    }
+
+    private RecordingUserInterface target;
+
+    @BeforeEach
+    void setUp() {
+        target = new RecordingUserInterface();
+    }
+
+    private static Config config(int frameRate) {
+        Properties properties = new Properties();
+        properties.put("FrameRate", Integer.toString(frameRate));
+        return new Config(Logger.getAnonymousLogger(), properties);
+    }
+
+    @Test
+    void frame_CoalescesTheUpdatesOfAFrame() throws InterruptedException, InvocationTargetException {
+        FrameUserInterface ui = new FrameUserInterface(target, config(1));
+
+        for (int slot = 0; slot < 12; ++slot)
+            ui.placeCard(slot, slot);
+        ui.removeCard(3);
+        ui.placeCard(40, 3);
+        ui.placeToken(0, 5);
+        ui.removeToken(0, 5);
+        ui.placeToken(1, 6);
+        ui.removeTokens(7);
+        ui.placeToken(0, 7);
+        for (int millies = 60_000; millies >= 50_000; millies -= 10)
+            ui.setCountdown(millies, false);
+        ui.setScore(1, 1);
+        ui.setScore(1, 2);
+        EventQueue.invokeAndWait(ui::frame);
+
+        assertEquals(12 + 5, target.updates.size(), target.updates.toString());
+        assertEquals("placeCard 40 3", target.updates.get(3));
+        assertTrue(target.updates.containsAll(List.of("removeTokens 7", "placeToken 0 7", "placeToken 1 6",
+                "setScore 1 2", "setCountdown 50000 false")));
+        assertTrue(target.updates.indexOf("removeTokens 7") < target.updates.indexOf("placeToken 0 7"));
+        assertTrue(target.onlyOnDispatchThread);
+
+        EventQueue.invokeAndWait(ui::frame);
+        assertEquals(17, target.updates.size(), "an empty frame should not update anything");
+        ui.dispose();
+    }
+
+    @Test
+    void updates_AppliedOnTheDispatchThreadByTheFrameTimer() throws InterruptedException {
+        FrameUserInterface ui = new FrameUserInterface(target, config(100));
+        Thread game = new Thread(() -> {
+            for (int i = 0; i < 1000; ++i)
+                ui.setScore(0, i);
+            ui.placeCard(17, 2);
+        });
+        game.start();
+        game.join();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (target.updates) {
+                if (target.updates.contains("setScore 0 999") && target.updates.contains("placeCard 17 2")) break;
+            }
+            Thread.sleep(10);
+        }
+        ui.dispose();
+        while (!target.disposed && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        assertTrue(target.updates.contains("setScore 0 999"), target.updates.toString());
+        assertTrue(target.updates.contains("placeCard 17 2"));
+        assertTrue(target.updates.size() < 100, "the score updates should be coalesced: " + target.updates.size());
+        assertEquals("dispose", target.updates.get(target.updates.size() - 1));
+        assertTrue(target.onlyOnDispatchThread);
+    }
+}
@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static Config config() {
+        return new Config(Logger.getAnonymousLogger(), new Properties());
+    }
+
+    @Test
+    void read_ReturnsTheEventsInOrder() throws IOException {
+        Path path = directory.resolve("game.journal");
+        Config config = config();
+        GameJournal journal = new GameJournal(path, 1000, config, Logger.getAnonymousLogger());
+        journal.deal(17, 3);
+        journal.tokenPlaced(1, 3);
+        journal.claim(1, new int[]{17, 5, 60, 2});
+        journal.verdict(1, 0);
+        journal.end(new int[]{0, 1});
+        journal.close();
+
+        assertEquals(9 * GameJournal.RECORD_SIZE, Files.size(path));
+        List<GameJournal.Event> events = GameJournal.readAll(path);
+        assertEquals(9, events.size());
+        GameJournal.Event header = events.get(0);
+        assertEquals(GameJournal.HEADER, header.type);
+        assertEquals(GameJournal.VERSION, header.a);
+        assertEquals(config.tableSize, header.b);
+        assertEquals(config.players, header.c);
+        assertEquals(GameJournal.DEAL, events.get(1).type);
+        assertEquals(17, events.get(1).a);
+        assertEquals(3, events.get(1).b);
+        GameJournal.Event claim = events.get(3);
+        assertEquals(GameJournal.CLAIM, claim.type);
+        assertEquals(4, claim.b);
+        assertEquals(60, claim.e);
+        GameJournal.Event rest = events.get(4);
+        assertEquals(GameJournal.CLAIM_CARDS, rest.type);
+        assertEquals(3, rest.b);
+        assertEquals(2, rest.c);
+        assertEquals(-1, rest.d);
+        assertEquals(GameJournal.WINNER, events.get(6).type);
+        assertEquals(GameJournal.END, events.get(8).type);
+        assertEquals(2, events.get(8).a);
+        for (int i = 1; i < events.size(); ++i)
+            assertTrue(events.get(i).time >= events.get(i - 1).time);
+    }
+
+    @Test
+    void append_GrowsTheFileAcrossSegmentsFromManyThreads() throws Exception {
+        Path path = directory.resolve("game.journal");
+        GameJournal journal = new GameJournal(path, 10, config(), Logger.getAnonymousLogger());
+        int perThread = GameJournal.SEGMENT_SIZE / GameJournal.RECORD_SIZE;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            int player = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; ++i)
+                    journal.tokenPlaced(player, i);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        journal.close();
+
+        int[] next = new int[threads.length];
+        Iterator<GameJournal.Event> events = GameJournal.read(path);
+        assertEquals(GameJournal.HEADER, events.next().type);
+        while (events.hasNext()) {
+            GameJournal.Event event = events.next();
+            assertEquals(GameJournal.TOKEN_PLACE, event.type);
+            assertEquals(next[event.a]++, event.b);
+        }
+        for (int count : next)
+            assertEquals(perThread, count);
+    }
+
+    @Test
+    void close_WaitsForTheAppendsInProgressAndIgnoresLaterOnes() throws Exception {
+        Path path = directory.resolve("game.journal");
+        GameJournal journal = new GameJournal(path, 10, config(), Logger.getAnonymousLogger());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            int player = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < GameJournal.SEGMENT_SIZE; ++i)
+                    journal.tokenPlaced(player, i);
+            });
+            threads[t].start();
+        }
+        Thread.sleep(20);
+        journal.close();
+        long records = journal.records();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(records, journal.records());
+        assertFalse(journal.broken());
+        assertEquals(records * GameJournal.RECORD_SIZE, Files.size(path));
+        assertEquals(records, GameJournal.readAll(path).size());
+    }
+
+    @Test
+    void disabledJournal_RecordsNothing() throws IOException {
+        GameJournal.DISABLED.deal(1, 2);
+        GameJournal.DISABLED.close();
+        assertEquals(0, GameJournal.DISABLED.records());
+        assertFalse(Files.exists(directory.resolve("game.journal")));
+    }
+}
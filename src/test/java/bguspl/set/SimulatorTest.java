@@ -0,0 +1,81 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulatorTest {
+
+    @Test
+    void gameSeeds_DifferentForEveryGameAndRepeatable() {
+        long[] seeds = Simulator.gameSeeds(42, 2);
+        assertNotEquals(seeds[0], seeds[1]);
+        assertArrayEquals(seeds, Simulator.gameSeeds(42, 2));
+    }
+
+    @Test
+    void play_EveryGameGetsItsOwnSeed() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", "2");
+        properties.setProperty("FeatureCount", "3");
+        properties.setProperty("Clock", "virtual");
+        properties.setProperty("TurnTimeoutWarningSeconds", "0");
+        properties.setProperty("PointFreezeSeconds", "0");
+        properties.setProperty("PenaltyFreezeSeconds", "0");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("ComputerPlayerDelaySeconds", "0");
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+
+        Simulator simulator = new Simulator();
+        long[] seeds = Simulator.gameSeeds(7, 2);
+        simulator.play(logger, properties, seeds);
+        List<String> report = new ArrayList<>();
+        simulator.report(report::add);
+
+        Pattern game = Pattern.compile("game (\\d+): seed (-?\\d+),.*");
+        List<Long> played = new ArrayList<>();
+        for (String line : report) {
+            Matcher matcher = game.matcher(line);
+            if (matcher.matches()) played.add(Long.parseLong(matcher.group(2)));
+        }
+        assertEquals(List.of(seeds[0], seeds[1]), played);
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("games: 2")));
+    }
+
+    @Test
+    void play_SameSeedPlaysTheSameGame() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", "3");
+        properties.setProperty("FeatureCount", "3");
+        properties.setProperty("Clock", "virtual");
+        properties.setProperty("TurnTimeoutWarningSeconds", "0");
+        properties.setProperty("PointFreezeSeconds", "0");
+        properties.setProperty("PenaltyFreezeSeconds", "0");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("ComputerPlayerDelaySeconds", "0");
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+
+        Simulator simulator = new Simulator();
+        simulator.play(logger, properties, new long[]{11, 11});
+        List<String> report = new ArrayList<>();
+        simulator.report(report::add);
+
+        assertEquals(report.get(0).replace("game 1:", "game 2:"), report.get(1));
+    }
+}
@@ -0,0 +1,242 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private static UtilImpl createUtil(int featureSize, int featureCount, boolean precompute) {
+        return createUtil(featureSize, featureCount, precompute, Integer.MAX_VALUE);
+    }
+
+    private static UtilImpl createUtil(int featureSize, int featureCount, boolean precompute, int parallelThreshold) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("PrecomputeFeatures", Boolean.toString(precompute));
+        properties.put("ParallelSearchThreshold", Integer.toString(parallelThreshold));
+        return new UtilImpl(new Config(new MockLogger(), properties));
+    }
+
+    @Test
+    void testSet_PrecomputedMatchesPairwise_AllTriples() {
+        UtilImpl util = createUtil(3, 4, true);
+        int deckSize = 81;
+        for (int a = 0; a < deckSize; ++a)
+            for (int b = a + 1; b < deckSize; ++b)
+                for (int c = b + 1; c < deckSize; ++c) {
+                    int[] cards = {a, b, c};
+                    assertEquals(util.testSetPairwise(cards), util.testSetPrecomputed(cards), "cards " + a + ", " + b + ", " + c);
+                }
+    }
+
+    @Test
+    void testSet_PrecomputedMatchesPairwise_RandomCards() {
+        Random random = new Random(0);
+        int[][] configurations = {{2, 3}, {3, 5}, {4, 4}, {5, 3}, {6, 2}};
+        for (int[] configuration : configurations) {
+            UtilImpl util = createUtil(configuration[0], configuration[1], true);
+            int deckSize = (int) Math.pow(configuration[0], configuration[1]);
+            for (int i = 0; i < 10000; ++i) {
+                int[] cards = random.ints(random.nextInt(configuration[0] + 2), 0, deckSize).toArray();
+                assertEquals(util.testSetPairwise(cards), util.testSetPrecomputed(cards), "configuration " + configuration[0] + "^" + configuration[1]);
+            }
+        }
+    }
+
+    @Test
+    void testSet_BitmaskMatchesPairwise_RandomCards() {
+        Random random = new Random(4);
+        int[][] configurations = {{2, 3}, {3, 4}, {4, 4}, {5, 3}, {6, 3}};
+        for (int[] configuration : configurations)
+            for (boolean precompute : new boolean[]{true, false}) {
+                UtilImpl util = createUtil(configuration[0], configuration[1], precompute);
+                int deckSize = (int) Math.pow(configuration[0], configuration[1]);
+                for (int i = 0; i < 10000; ++i) {
+                    int[] cards = random.ints(random.nextInt(configuration[0] + 2), 0, deckSize).toArray();
+                    assertEquals(util.testSetPairwise(cards), util.testSetBitmask(cards), "configuration " + configuration[0] + "^" + configuration[1]);
+                }
+                for (int i = 0; i < 1000; ++i)
+                    assertTrue(util.testSetBitmask(randomSet(random, configuration[0], configuration[1])));
+            }
+    }
+
+    /**
+     * Generates a random legal set: every feature is either the same value in all cards or a permutation of all values.
+     */
+    static int[] randomSet(Random random, int featureSize, int featureCount) {
+        int[] cards = new int[featureSize];
+        for (int i = 0, weight = 1; i < featureCount; ++i, weight *= featureSize) {
+            List<Integer> values = IntStream.range(0, featureSize).boxed().collect(Collectors.toList());
+            if (random.nextBoolean()) Collections.shuffle(values, random);
+            else Collections.fill(values, random.nextInt(featureSize));
+            for (int j = 0; j < featureSize; ++j)
+                cards[j] += values.get(j) * weight;
+        }
+        return cards;
+    }
+
+    @Test
+    void testSet_PackedMatchesPairwise_AllTriples() {
+        for (boolean precompute : new boolean[]{true, false}) {
+            UtilImpl util = createUtil(3, 4, precompute);
+            int deckSize = 81;
+            for (int a = 0; a < deckSize; ++a)
+                for (int b = a; b < deckSize; ++b)
+                    for (int c = b; c < deckSize; ++c) {
+                        int[] cards = {a, b, c};
+                        assertEquals(util.testSetPairwise(cards), util.testSetPacked(cards), "cards " + a + ", " + b + ", " + c);
+                    }
+        }
+    }
+
+    @Test
+    void testSet_PackedMatchesPairwise_RandomCards() {
+        Random random = new Random(2);
+        int[][] configurations = {{2, 5}, {3, 6}, {4, 4}, {5, 3}, {6, 4}, {8, 2}};
+        for (int[] configuration : configurations) {
+            UtilImpl util = createUtil(configuration[0], configuration[1], true);
+            int deckSize = (int) Math.pow(configuration[0], configuration[1]);
+            for (int i = 0; i < 10000; ++i) {
+                int[] cards = random.ints(configuration[0], 0, deckSize).toArray();
+                assertEquals(util.testSetPairwise(cards), util.testSetPacked(cards), "configuration " + configuration[0] + "^" + configuration[1]);
+            }
+        }
+    }
+
+    @Test
+    void testSet_ModesAgree() {
+        UtilImpl precomputed = createUtil(3, 4, true);
+        UtilImpl computed = createUtil(3, 4, false);
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; ++i) {
+            int[] cards = random.ints(3, 0, 81).toArray();
+            assertEquals(computed.testSet(cards), precomputed.testSet(cards));
+        }
+    }
+
+    @Test
+    void findSets_CompletionMatchesBruteForce() {
+        Random random = new Random(2);
+        UtilImpl util = createUtil(3, 4, true);
+        for (int i = 0; i < 50; ++i) {
+            List<Integer> deck = IntStream.range(0, 81).boxed().collect(Collectors.toList());
+            Collections.shuffle(deck, random);
+            List<Integer> cards = deck.subList(0, random.nextInt(82));
+
+            List<int[]> expected = bruteForceSets(util, cards);
+            List<int[]> sets = util.findSets(cards, Integer.MAX_VALUE);
+            assertEquals(expected.size(), sets.size());
+            for (int j = 0; j < expected.size(); ++j)
+                assertArrayEquals(expected.get(j), sets.get(j));
+
+            int count = random.nextInt(5) + 1;
+            assertEquals(Math.min(count, expected.size()), util.findSets(cards, count).size());
+        }
+    }
+
+    /**
+     * Tests every triple of the cards, in the lexicographic order of their positions.
+     */
+    private static List<int[]> bruteForceSets(UtilImpl util, List<Integer> cards) {
+        List<int[]> sets = new ArrayList<>();
+        for (int i = 0; i < cards.size(); ++i)
+            for (int j = i + 1; j < cards.size(); ++j)
+                for (int k = j + 1; k < cards.size(); ++k) {
+                    int[] set = IntStream.of(cards.get(i), cards.get(j), cards.get(k)).sorted().toArray();
+                    if (util.testSet(set)) sets.add(set);
+                }
+        return sets;
+    }
+
+    @Test
+    void findSets_IteratorMatchesBruteForce() {
+        Random random = new Random(3);
+        int[][] configurations = {{3, 4}, {4, 3}};
+        for (int[] configuration : configurations) {
+            UtilImpl util = createUtil(configuration[0], configuration[1], true);
+            int deckSize = (int) Math.pow(configuration[0], configuration[1]);
+            for (int i = 0; i < 20; ++i) {
+                List<Integer> deck = IntStream.range(0, deckSize).boxed().collect(Collectors.toList());
+                Collections.shuffle(deck, random);
+                int[] cards = deck.subList(0, random.nextInt(deckSize + 1)).stream().mapToInt(Integer::intValue).toArray();
+
+                List<int[]> expected = new ArrayList<>();
+                int[] combination = new int[configuration[0]];
+                collectSets(util, cards, combination, 0, 0, expected);
+
+                Iterator<int[]> iterator = util.findSets(cards);
+                for (int[] set : expected)
+                    assertArrayEquals(set, iterator.next());
+                assertFalse(iterator.hasNext());
+            }
+        }
+    }
+
+    private static void collectSets(UtilImpl util, int[] cards, int[] combination, int index, int from, List<int[]> sets) {
+        if (index == combination.length) {
+            int[] set = Arrays.stream(combination).map(i -> cards[i]).sorted().toArray();
+            if (util.testSetPairwise(set)) sets.add(set);
+            return;
+        }
+        for (int i = from; i < cards.length; ++i) {
+            combination[index] = i;
+            collectSets(util, cards, combination, index + 1, i + 1, sets);
+        }
+    }
+
+    @Test
+    void findSets_ListStopsAtCount() {
+        UtilImpl util = createUtil(3, 4, true);
+        List<Integer> deck = IntStream.range(0, 81).boxed().collect(Collectors.toList());
+        assertEquals(5, util.findSets(deck, 5).size());
+        assertEquals(1080, util.findSets(deck, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void findSets_ParallelMatchesSequential() {
+        int[][] configurations = {{3, 6}, {4, 3}};
+        for (int[] configuration : configurations) {
+            UtilImpl sequential = createUtil(configuration[0], configuration[1], true);
+            UtilImpl parallel = createUtil(configuration[0], configuration[1], true, 0);
+            int deckSize = (int) Math.pow(configuration[0], configuration[1]);
+            int[] cards = IntStream.range(0, deckSize).toArray();
+
+            List<int[]> expected = sequential.findSets(cards, Integer.MAX_VALUE);
+            List<int[]> actual = parallel.findSets(cards, Integer.MAX_VALUE);
+            assertEquals(expected.size(), actual.size());
+            Iterator<int[]> iterator = actual.iterator();
+            for (int[] set : expected)
+                assertArrayEquals(set, iterator.next());
+
+            for (int count : new int[]{1, 10, 100}) {
+                List<int[]> limited = parallel.findSets(cards, count);
+                assertEquals(count, limited.size());
+                Iterator<int[]> first = parallel.findSets(cards);
+                for (int[] set : limited)
+                    assertArrayEquals(first.next(), set, "the first sets of the sequential order");
+            }
+        }
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
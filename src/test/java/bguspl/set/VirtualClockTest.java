@@ -0,0 +1,48 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualClockTest {
+
+    VirtualClock clock = new VirtualClock(1000);
+
+    @Test
+    void sleep_MovesTheTimeWithoutWaiting() throws InterruptedException {
+        long start = System.nanoTime();
+        clock.sleep(60_000);
+        assertEquals(61_000, clock.currentTimeMillis());
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "a minute passed in less than a second");
+    }
+
+    @Test
+    void advance_NeverMovesTheTimeBackwards() {
+        clock.advance(500);
+        clock.advance(-100);
+        assertEquals(1500, clock.currentTimeMillis());
+    }
+
+    @Test
+    void poll_WaitsOnlyWhenTheQueueIsEmpty() throws InterruptedException {
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        queue.add(7);
+        assertEquals(7, clock.poll(queue, 100));
+        assertEquals(1000, clock.currentTimeMillis());
+        assertNull(clock.poll(queue, 100));
+        assertEquals(1100, clock.currentTimeMillis());
+    }
+
+    @Test
+    void sleep_ThrowsWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, () -> clock.sleep(10));
+        assertEquals(1000, clock.currentTimeMillis());
+    }
+}
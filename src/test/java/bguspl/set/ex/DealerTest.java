@@ -4,6 +4,7 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,9 +14,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -74,4 +78,129 @@ class DealerTest {
         assertEquals(100, dealer.reshuffleTime, "The reshuffle time was updated correctly");
     }
 
+    @Test
+    void removeCardsFromTable_ResolvesABatchOfClaimsFromManyPlayers() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, ui, new UtilImpl(config));
+        Table realTable = new Table(env);
+        Player[] players = new Player[64];
+        Dealer batchDealer = new Dealer(env, realTable, players);
+        for (int i = 0; i < players.length; ++i)
+            players[i] = new Player(env, batchDealer, realTable, i, false);
+        batchDealer.stop = false;
+
+        // cards 0 (0000), 1 (0001) and 2 (0002) form a set, 3 (0010), 4 (0011) and 6 (0020) do not
+        int rounds = 200;
+        for (int round = 0; round < rounds; ++round) {
+            for (int card = 0; card < 7; ++card)
+                realTable.placeCard(card, card);
+            CountDownLatch submitted = new CountDownLatch(players.length);
+            Claim[] claims = new Claim[players.length];
+            Claim.Verdict[] verdicts = new Claim.Verdict[players.length];
+            Thread[] threads = new Thread[players.length];
+            for (Player player : players) {
+                int[] cards = player.id % 2 == 0 ? new int[]{0, 1, 2} : new int[]{3, 4, 6};
+                threads[player.id] = new Thread(() -> {
+                    int[] epochs = new int[cards.length];
+                    realTable.readCards(cards, new int[cards.length], epochs); // card c was placed in slot c
+                    claims[player.id] = batchDealer.submitClaim(player.id, cards, cards, epochs);
+                    submitted.countDown();
+                    try {
+                        verdicts[player.id] = claims[player.id].await();
+                    } catch (InterruptedException ignored) {}
+                });
+                threads[player.id].start();
+            }
+            submitted.await();
+
+            batchDealer.removeCardsFromTable();
+            for (Thread thread : threads)
+                thread.join();
+
+            assertTrue(batchDealer.cardsToCheck.isEmpty(), "All the pending claims were handled");
+            int points = 0;
+            for (Player player : players) {
+                if (verdicts[player.id] == Claim.Verdict.POINT) ++points;
+                else if (player.id % 2 == 1) assertEquals(Claim.Verdict.PENALTY, verdicts[player.id], "A claim that is not a set is penalized");
+                else assertEquals(Claim.Verdict.INVALIDATED, verdicts[player.id], "A claim whose cards were taken is invalidated");
+                assertTrue(claims[player.id].latencyNanos() >= 0, "Every claim was answered");
+            }
+            assertEquals(1, points, "Exactly one of the conflicting claims is accepted");
+            for (int card = 0; card < 3; ++card)
+                assertEquals(Table.NONE, realTable.slotOf(card), "The cards of the accepted set were removed");
+            batchDealer.stop = false;
+        }
+        assertEquals(rounds * players.length, batchDealer.metrics.getClaims());
+        assertEquals(rounds, batchDealer.metrics.getSets());
+        assertEquals(rounds * players.length, batchDealer.metrics.queueWait.count());
+    }
+
+    @Test
+    void removeCardsFromTable_SkipsAClaimAnsweredWhenTheGameWasTerminated() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, ui, new UtilImpl(config));
+        Table realTable = new Table(env);
+        Dealer racingDealer = new Dealer(env, realTable, new Player[0]);
+        racingDealer.stop = false;
+
+        // cards 0 (0000), 1 (0001) and 2 (0002) form a set
+        int[] cards = {0, 1, 2};
+        for (int card : cards)
+            realTable.placeCard(card, card);
+        int[] epochs = new int[cards.length];
+        realTable.readCards(cards, new int[cards.length], epochs);
+        Claim claim = racingDealer.submitClaim(0, cards, cards, epochs);
+        claim.complete(Claim.Verdict.INVALIDATED); // as submitClaim does when the game is terminated meanwhile
+
+        racingDealer.removeCardsFromTable();
+        assertEquals(Claim.Verdict.INVALIDATED, claim.verdict());
+        for (int card : cards)
+            assertEquals(card, realTable.slotOf(card), "The cards of a claim that was not accepted stay on the table");
+        assertEquals(0, racingDealer.metrics.getClaims(), "The claim is counted only where it was answered");
+        assertEquals(0, racingDealer.metrics.getSets());
+    }
+
+    @Test
+    void shouldFinish_NotWhileASetIsLeftOnTheTableWithoutTheCatalogue() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        properties.put("FeatureSize", "4"); // not supported by the set catalogue
+        properties.put("FeatureCount", "2");
+        Config config = new Config(logger, properties);
+        assertFalse(SetCatalogue.supports(config));
+        Env env = new Env(logger, config, ui, new UtilImpl(config));
+        Table realTable = new Table(env);
+        Dealer fallbackDealer = new Dealer(env, realTable, new Player[0]);
+
+        // cards 0 (00), 1 (01), 2 (02) and 3 (03) form a set, 5 (11) and 10 (22) are not enough for one
+        while (!fallbackDealer.deck.isEmpty())
+            fallbackDealer.deck.draw();
+        fallbackDealer.deck.add(5);
+        fallbackDealer.deck.add(10);
+        for (int card = 0; card < 4; ++card)
+            realTable.placeCard(card, card);
+        assertFalse(fallbackDealer.shouldFinish(), "The set on the table can still be claimed");
+
+        for (int slot = 0; slot < 4; ++slot)
+            realTable.removeCard(slot);
+        assertTrue(fallbackDealer.shouldFinish(), "No set is left in the deck and on the table");
+    }
+
+    @Test
+    void submitClaim_AnsweredAsInvalidatedWhenTheGameIsOver() throws InterruptedException {
+        Player[] players = new Player[0];
+        Env env = new Env(logger, new Config(logger, (String) null), ui, util);
+        Dealer finished = new Dealer(env, table, players);
+        finished.terminate();
+
+        Claim claim = finished.submitClaim(0, new int[]{0, 1, 2}, new int[]{0, 1, 2}, new int[3]);
+        assertEquals(Claim.Verdict.INVALIDATED, claim.await());
+        assertTrue(claim.latencyNanos() >= 0);
+        assertFalse(claim.complete(Claim.Verdict.POINT), "A claim is answered only once");
+    }
+
 }
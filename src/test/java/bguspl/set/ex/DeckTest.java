@@ -0,0 +1,70 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    Deck deck;
+
+    @BeforeEach
+    void setUp() {
+        deck = new Deck(81);
+    }
+
+    @Test
+    void draw_AllCardsOnce() {
+        boolean[] drawn = new boolean[81];
+        while (!deck.isEmpty()) {
+            int card = deck.draw();
+            assertTrue(!drawn[card], "card " + card + " was drawn twice");
+            drawn[card] = true;
+        }
+        for (boolean cardDrawn : drawn)
+            assertTrue(cardDrawn);
+    }
+
+    @Test
+    void draw_RepeatableForTheSameSeed() {
+        Deck first = new Deck(81, new SplittableRandom(42));
+        Deck second = new Deck(81, new SplittableRandom(42));
+        int[] firstDraws = new int[81];
+        int[] secondDraws = new int[81];
+        for (int i = 0; i < 81; ++i) {
+            firstDraws[i] = first.draw();
+            secondDraws[i] = second.draw();
+        }
+        assertArrayEquals(firstDraws, secondDraws);
+    }
+
+    @Test
+    void addAll_ReturnsCards() {
+        int[] table = new int[12];
+        for (int i = 0; i < table.length; ++i)
+            table[i] = deck.draw();
+        assertEquals(81 - 12, deck.size());
+
+        deck.addAll(table, 12);
+        assertEquals(81, deck.size());
+        int[] cards = deck.toArray();
+        Arrays.sort(cards);
+        for (int i = 0; i < cards.length; ++i)
+            assertEquals(i, cards[i]);
+    }
+
+    @Test
+    void add_BeyondCapacity() {
+        deck.add(5);
+        assertEquals(82, deck.size());
+        int[] copy = new int[82];
+        assertEquals(82, deck.copyTo(copy));
+        assertArrayEquals(deck.toArray(), copy);
+    }
+}
@@ -0,0 +1,162 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.NullUserInterface;
+import bguspl.set.SystemClock;
+import bguspl.set.UtilImpl;
+import bguspl.set.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLoopTest {
+
+    /**
+     * A user interface that keeps everything it was asked to display, in order.
+     */
+    static class RecordingUserInterface extends NullUserInterface {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void placeCard(int card, int slot) {
+            calls.add("placeCard " + card + " " + slot);
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            calls.add("removeCard " + slot);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            calls.add("placeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void removeTokens() {
+            calls.add("removeTokens");
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+            calls.add("removeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {
+            calls.add("setCountdown " + millies + " " + warn);
+        }
+
+        @Override
+        public void setFreeze(int player, long millies) {
+            calls.add("setFreeze " + player + " " + millies);
+        }
+
+        @Override
+        public void setScore(int player, int score) {
+            calls.add("setScore " + player + " " + score);
+        }
+
+        @Override
+        public void announceWinner(int[] players) {
+            calls.add("announceWinner " + Arrays.toString(players));
+        }
+    }
+
+    /**
+     * A game must not start any thread on an event loop.
+     */
+    private static final ThreadFactory NO_THREADS = runnable -> {
+        throw new AssertionError("a thread was created");
+    };
+
+    private static Config config(long seed) {
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", "3");
+        properties.setProperty("FeatureCount", "3");
+        properties.setProperty("Clock", "virtual");
+        properties.setProperty("Seed", Long.toString(seed));
+        properties.setProperty("TurnTimeoutSeconds", "5");
+        properties.setProperty("TurnTimeoutWarningSeconds", "1");
+        properties.setProperty("PointFreezeSeconds", "1");
+        properties.setProperty("PenaltyFreezeSeconds", "2");
+        properties.setProperty("ComputerPlayerDelaySeconds", "0.01");
+        properties.setProperty("TableDelaySeconds", "0");
+        return new Config(new TableTest.MockLogger(), properties);
+    }
+
+    /**
+     * Plays a game on an event loop.
+     *
+     * @return - the recorded user interface calls, followed by the scores, the number of claims checked and the
+     *           virtual time the game ended at.
+     */
+    private static List<String> play(long seed) {
+        Config config = config(seed);
+        RecordingUserInterface ui = new RecordingUserInterface();
+        VirtualClock clock = new VirtualClock(0);
+        Env env = new Env(new TableTest.MockLogger(), config, ui, new UtilImpl(config), NO_THREADS, clock);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        new EventLoop(env, dealer, players).run();
+
+        assertTrue(dealer.getTerminate());
+        List<String> game = new ArrayList<>(ui.calls);
+        for (Player player : players)
+            game.add("score " + player.id + " " + player.score());
+        game.add("claims " + dealer.claimsChecked());
+        game.add("time " + clock.currentTimeMillis());
+        return game;
+    }
+
+    @Test
+    void run_SameSeedPlaysTheSameGame() {
+        List<String> game = play(42);
+
+        assertEquals(game, play(42));
+        assertTrue(game.stream().anyMatch(call -> call.startsWith("announceWinner")));
+        assertTrue(game.stream().anyMatch(call -> call.startsWith("setScore")));
+        assertTrue(game.stream().anyMatch(call -> call.startsWith("setFreeze 0 1500")
+                || call.startsWith("setFreeze 1 1500") || call.startsWith("setFreeze 2 1500")));
+    }
+
+    @Test
+    void run_PlaysTheGameToItsEndWithoutThreads() {
+        List<String> game = play(7);
+
+        List<String> calls = game.subList(0, game.size() - config(7).players - 2);
+        assertTrue(calls.get(calls.size() - 1).startsWith("announceWinner"));
+        int sets = game.stream().filter(call -> call.startsWith("score "))
+                .mapToInt(call -> Integer.parseInt(call.split(" ")[2])).sum();
+        assertTrue(sets > 0);
+    }
+
+    @Test
+    void constructor_RejectsTheSystemClock() {
+        Config config = config(1);
+        Env env = new Env(new TableTest.MockLogger(), config, new NullUserInterface(), new UtilImpl(config),
+                NO_THREADS, new SystemClock());
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        assertThrows(IllegalArgumentException.class, () -> new EventLoop(env, dealer, players));
+    }
+}
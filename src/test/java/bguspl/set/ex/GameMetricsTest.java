@@ -0,0 +1,59 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameMetricsTest {
+
+    GameMetrics metrics = new GameMetrics(2);
+
+    @Test
+    void histogram_PercentilesWithinAFactorOfTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; ++i)
+            histogram.record(i * 1000L);
+
+        assertEquals(1000, histogram.count());
+        assertEquals(500_500, histogram.mean());
+        assertEquals(1_000_000, histogram.max());
+        long median = histogram.percentile(50);
+        assertTrue(median >= 500_000 && median < 1_000_000, "median bound " + median);
+        assertEquals(1_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void count_ByVerdict() {
+        metrics.count(Claim.Verdict.POINT);
+        metrics.count(Claim.Verdict.PENALTY);
+        metrics.count(Claim.Verdict.PENALTY);
+        metrics.count(Claim.Verdict.INVALIDATED);
+
+        assertEquals(1, metrics.getSets());
+        assertEquals(2, metrics.getPenalties());
+        assertEquals(1, metrics.getInvalidatedClaims());
+        assertEquals(4, metrics.getClaims());
+    }
+
+    @Test
+    void register_ExposesTheMetricsThroughJmx() throws Exception {
+        metrics.count(Claim.Verdict.PENALTY);
+        metrics.queueWait.record(3000);
+        metrics.register(new TableTest.MockLogger());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+        assertEquals(1L, server.getAttribute(name, "Penalties"));
+        assertEquals(3L, server.getAttribute(name, "QueueWaitMeanMicros"));
+        assertEquals(2, ((String[]) server.getAttribute(name, "ReactionTimes")).length);
+
+        new GameMetrics(0).register(new TableTest.MockLogger());
+        assertEquals(0L, server.getAttribute(name, "Penalties"), "the metrics of the next game replace them");
+        server.unregisterMBean(name);
+    }
+}
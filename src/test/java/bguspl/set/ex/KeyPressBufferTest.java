@@ -0,0 +1,146 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyPressBufferTest {
+
+    KeyPressBuffer buffer = new KeyPressBuffer(3);
+
+    @Test
+    void offer_RejectedWhenFull() throws InterruptedException {
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(7));
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.isFull());
+        assertFalse(buffer.offer(2), "The buffer holds at most 3 key presses");
+
+        assertEquals(4, buffer.take());
+        assertTrue(buffer.offer(2));
+        assertEquals(7, buffer.take());
+        assertEquals(1, buffer.take());
+        assertEquals(2, buffer.take());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void clear_DiscardsThePendingKeyPresses() throws InterruptedException {
+        buffer.offer(4);
+        buffer.offer(7);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        buffer.offer(1);
+        assertEquals(1, buffer.take());
+    }
+
+    @Test
+    void offer_AcceptedRightAfterClearingAFullBuffer() throws InterruptedException {
+        buffer.offer(4);
+        buffer.offer(7);
+        buffer.offer(1);
+        buffer.clear();
+
+        assertFalse(buffer.isFull());
+        assertTrue(buffer.offer(2), "The cleared key presses should not take space until the consumer runs");
+        assertTrue(buffer.offer(5));
+        assertTrue(buffer.offer(8));
+        assertFalse(buffer.offer(9));
+        assertEquals(2, buffer.take());
+        assertEquals(5, buffer.take());
+        assertEquals(8, buffer.take());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void poll_ReturnsEmptyInsteadOfWaiting() {
+        assertEquals(KeyPressBuffer.EMPTY, buffer.poll());
+        buffer.offer(4);
+        buffer.offer(7);
+        buffer.clear();
+        buffer.offer(1);
+
+        assertEquals(1, buffer.poll(), "The cleared key presses should be skipped");
+        assertEquals(KeyPressBuffer.EMPTY, buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void take_WaitsForTheProducer() throws InterruptedException {
+        AtomicInteger sum = new AtomicInteger();
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 10000; ++i)
+                    sum.addAndGet(buffer.take());
+            } catch (InterruptedException ignored) {}
+        });
+        consumer.start();
+        for (int i = 0; i < 10000; ++i)
+            while (!buffer.offer(i % 12))
+                Thread.yield();
+        consumer.join();
+
+        int expected = 0;
+        for (int i = 0; i < 10000; ++i)
+            expected += i % 12;
+        assertEquals(expected, sum.get(), "Every key press was taken exactly once");
+    }
+
+    @Test
+    void take_NeverReturnsAKeyPressOverwrittenAfterClearingFromAnotherThread() throws InterruptedException {
+        int presses = 100000;
+        AtomicBoolean inOrder = new AtomicBoolean(true);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            int last = -1;
+            try {
+                while (last < presses - 1) {
+                    int slot = buffer.take();
+                    if (slot <= last) inOrder.set(false);
+                    last = slot;
+                }
+            } catch (InterruptedException ignored) {}
+        });
+        Thread clearing = new Thread(() -> {
+            while (!done.get()) {
+                buffer.clear();
+                Thread.yield();
+            }
+        });
+        consumer.start();
+        clearing.start();
+        for (int i = 0; i < presses; ++i)
+            while (!buffer.offer(i))
+                Thread.yield();
+        done.set(true);
+        clearing.join();
+        while (consumer.isAlive()) {
+            buffer.offer(presses - 1); // the last key press may have been cleared
+            consumer.join(10);
+        }
+        assertTrue(inOrder.get(), "A key press was taken after a newer one");
+    }
+
+    @Test
+    void wakeUp_InterruptsAWaitingConsumer() throws InterruptedException {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            try {
+                buffer.take();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        consumer.start();
+        while (consumer.getState() != Thread.State.WAITING)
+            Thread.yield();
+        buffer.wakeUp();
+        consumer.join();
+        assertTrue(interrupted.get());
+    }
+}
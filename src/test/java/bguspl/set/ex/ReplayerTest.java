@@ -0,0 +1,222 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.GameJournal;
+import bguspl.set.UtilImpl;
+import bguspl.set.VirtualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayerTest {
+
+    private Config config;
+    private List<GameJournal.Event> journal;
+
+    /**
+     * A user interface that keeps what it displays.
+     */
+    static class DisplayedUserInterface extends TableTest.MockUserInterface {
+        final int[] cards;
+        final boolean[][] tokens;
+        final int[] scores;
+        int updates;
+
+        DisplayedUserInterface(Config config) {
+            cards = new int[config.tableSize];
+            Arrays.fill(cards, Table.NONE);
+            tokens = new boolean[config.players][config.tableSize];
+            scores = new int[config.players];
+        }
+
+        @Override
+        public void placeCard(int card, int slot) {
+            cards[slot] = card;
+            ++updates;
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            cards[slot] = Table.NONE;
+            ++updates;
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            tokens[player][slot] = true;
+            ++updates;
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+            tokens[player][slot] = false;
+            ++updates;
+        }
+
+        @Override
+        public void removeTokens(int slot) {
+            for (boolean[] playerTokens : tokens)
+                playerTokens[slot] = false;
+            ++updates;
+        }
+
+        @Override
+        public void removeTokens() {
+            for (boolean[] playerTokens : tokens)
+                Arrays.fill(playerTokens, false);
+            ++updates;
+        }
+
+        @Override
+        public void setScore(int player, int score) {
+            scores[player] = score;
+            ++updates;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "3");
+        config = new Config(new TableTest.MockLogger(), properties);
+        journal = randomJournal(new Random(7), 5000);
+    }
+
+    /**
+     * Creates a journal of a game in which every event is 1 millisecond after the previous one.
+     */
+    private List<GameJournal.Event> randomJournal(Random random, int length) {
+        List<GameJournal.Event> events = new ArrayList<>();
+        events.add(new GameJournal.Event(0, GameJournal.HEADER, GameJournal.VERSION, config.tableSize, config.players,
+                config.featureSize, config.featureCount));
+        int[] slotToCard = new int[config.tableSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        int[] scores = new int[config.players];
+        int nextCard = 0;
+        for (int i = 1; i <= length; ++i) {
+            long time = i * 1_000_000L;
+            int slot = random.nextInt(config.tableSize);
+            int player = random.nextInt(config.players);
+            int choice = random.nextInt(10);
+            if (slotToCard[slot] == Table.NONE) {
+                slotToCard[slot] = nextCard;
+                events.add(new GameJournal.Event(time, GameJournal.DEAL, nextCard, slot, 0, 0, 0));
+                nextCard = (nextCard + 1) % config.deckSize;
+            } else if (choice < 4) {
+                events.add(new GameJournal.Event(time, GameJournal.TOKEN_PLACE, player, slot, 0, 0, 0));
+            } else if (choice < 6) {
+                events.add(new GameJournal.Event(time, GameJournal.TOKEN_REMOVE, player, slot, 0, 0, 0));
+            } else if (choice < 8) {
+                slotToCard[slot] = Table.NONE;
+                events.add(new GameJournal.Event(time, GameJournal.TOKENS_REMOVE_SLOT, slot, 0, 0, 0, 0));
+                events.add(new GameJournal.Event(time, GameJournal.REMOVE, slot, 0, 0, 0, 0));
+            } else if (choice < 9) {
+                events.add(new GameJournal.Event(time, GameJournal.SCORE, player, ++scores[player], 0, 0, 0));
+            } else {
+                events.add(new GameJournal.Event(time, GameJournal.CLAIM, player, 3, 1, 2, 3));
+            }
+        }
+        return events;
+    }
+
+    private Env env(DisplayedUserInterface ui, VirtualClock clock) {
+        return new Env(new TableTest.MockLogger(), config, ui, new UtilImpl(config), Thread::new, clock);
+    }
+
+    private static int[] cardsOf(Table table) {
+        int[] cards = new int[table.slotToCard.length()];
+        Arrays.setAll(cards, table.slotToCard::get);
+        return cards;
+    }
+
+    private static void assertSameDisplay(Table expectedTable, DisplayedUserInterface expected, Table table,
+                                          DisplayedUserInterface actual) {
+        assertArrayEquals(cardsOf(expectedTable), cardsOf(table));
+        assertArrayEquals(expected.cards, actual.cards);
+        assertArrayEquals(cardsOf(table), actual.cards);
+        for (int player = 0; player < expected.tokens.length; ++player)
+            assertArrayEquals(expected.tokens[player], actual.tokens[player]);
+        assertArrayEquals(expected.scores, actual.scores);
+    }
+
+    @Test
+    void seek_ShowsTheSameStateAsPlayingUpToTheEvent() throws InterruptedException {
+        DisplayedUserInterface seekingUi = new DisplayedUserInterface(config);
+        Env seekingEnv = env(seekingUi, new VirtualClock(0));
+        Table seekingTable = new Table(seekingEnv);
+        Replayer seeking = new Replayer(seekingEnv, seekingTable, journal, 64);
+
+        Random random = new Random(11);
+        for (int i = 0; i < 50; ++i) {
+            int index = random.nextInt(seeking.size() + 1);
+            seeking.seek(index);
+            assertEquals(index, seeking.position());
+
+            DisplayedUserInterface playingUi = new DisplayedUserInterface(config);
+            Env playingEnv = env(playingUi, new VirtualClock(0));
+            Table playingTable = new Table(playingEnv);
+            Replayer playing = new Replayer(playingEnv, playingTable, journal, 64);
+            playing.play(Double.POSITIVE_INFINITY, index);
+
+            assertSameDisplay(playingTable, playingUi, seekingTable, seekingUi);
+        }
+    }
+
+    @Test
+    void seek_UpdatesOnlyWhatChanged() {
+        DisplayedUserInterface ui = new DisplayedUserInterface(config);
+        Env env = env(ui, new VirtualClock(0));
+        Replayer replayer = new Replayer(env, new Table(env), journal, 64);
+
+        replayer.seek(4000);
+        int updates = ui.updates;
+        replayer.seek(4000);
+        assertEquals(updates, ui.updates);
+        replayer.seek(4001);
+        assertTrue(ui.updates - updates <= 1, "a single event should need at most a single update");
+    }
+
+    @Test
+    void play_KeepsTheRecordedPaceDividedByTheSpeed() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(0);
+        Env env = env(new DisplayedUserInterface(config), clock);
+        Replayer replayer = new Replayer(env, new Table(env), journal, 64);
+        long recordedMillis = (journal.get(journal.size() - 1).time - journal.get(1).time) / 1_000_000;
+
+        replayer.play(4);
+
+        assertEquals(replayer.size(), replayer.position());
+        assertEquals(recordedMillis / 4, clock.currentTimeMillis(), 1);
+    }
+
+    @Test
+    void constructor_RejectsAJournalOfAnotherTable() {
+        List<GameJournal.Event> other = new ArrayList<>(journal);
+        other.set(0, new GameJournal.Event(0, GameJournal.HEADER, GameJournal.VERSION, config.tableSize + 1,
+                config.players, config.featureSize, config.featureCount));
+        Env env = env(new DisplayedUserInterface(config), new VirtualClock(0));
+        assertThrows(IllegalArgumentException.class, () -> new Replayer(env, new Table(env), other, 64));
+    }
+
+    @Test
+    void constructor_RejectsAJournalOfOtherCards() {
+        List<GameJournal.Event> other = new ArrayList<>(journal);
+        other.set(0, new GameJournal.Event(0, GameJournal.HEADER, GameJournal.VERSION, config.tableSize,
+                config.players, config.featureSize, config.featureCount + 1));
+        Env env = env(new DisplayedUserInterface(config), new VirtualClock(0));
+        assertThrows(IllegalArgumentException.class, () -> new Replayer(env, new Table(env), other, 64));
+    }
+}
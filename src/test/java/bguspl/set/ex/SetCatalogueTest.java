@@ -0,0 +1,53 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetCatalogueTest {
+
+    SetCatalogue catalogue;
+    UtilImpl util;
+
+    @BeforeEach
+    void setUp() {
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, new Properties());
+        util = new UtilImpl(config);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), util);
+        catalogue = new SetCatalogue(env);
+    }
+
+    @Test
+    void size_StandardDeck() {
+        assertEquals(1080, catalogue.size());
+        assertEquals(1080, catalogue.remaining());
+        for (int set = 0; set < catalogue.size(); ++set)
+            assertTrue(util.testSet(catalogue.cardsOf(set)));
+    }
+
+    @Test
+    void discard_RemovesSetsOfCard() {
+        // every card is part of (81 - 1) / 2 sets, and every two cards share exactly one set
+        catalogue.discard(0);
+        assertEquals(1080 - 40, catalogue.remaining());
+        catalogue.discard(0);
+        assertEquals(1080 - 40, catalogue.remaining());
+        catalogue.discard(1);
+        assertEquals(1080 - 40 - 39, catalogue.remaining());
+    }
+
+    @Test
+    void discard_AllCards() {
+        for (int card = 0; card < 81; ++card)
+            catalogue.discard(card);
+        assertEquals(0, catalogue.remaining());
+    }
+}
@@ -4,21 +4,32 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private AtomicIntegerArray slotToCard;
+    private AtomicIntegerArray cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -33,34 +44,38 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        int[] emptySlots = new int[config.tableSize];
+        int[] cardsNotOnTable = new int[config.deckSize];
+        Arrays.fill(emptySlots, Table.NONE);
+        Arrays.fill(cardsNotOnTable, Table.NONE);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
-        table = new Table(env, slotToCard, cardToSlot);
+        table = new Table(env, emptySlots, cardsNotOnTable);
+        slotToCard = table.slotToCard;
+        cardToSlot = table.cardToSlot;
     }
 
     private int fillSomeSlots() {
-        slotToCard[1] = 3;
-        slotToCard[2] = 5;
-        cardToSlot[3] = 1;
-        cardToSlot[5] = 2;
+        slotToCard.set(1, 3);
+        slotToCard.set(2, 5);
+        cardToSlot.set(3, 1);
+        cardToSlot.set(5, 2);
 
         return 2;
     }
 
     private void fillAllSlots() {
-        for (int i = 0; i < slotToCard.length; ++i) {
-            slotToCard[i] = i;
-            cardToSlot[i] = i;
+        for (int i = 0; i < slotToCard.length(); ++i) {
+            slotToCard.set(i, i);
+            cardToSlot.set(i, i);
         }
     }
 
     private void placeSomeCardsAndAssert() throws InterruptedException {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard.get(2));
+        assertEquals(2, cardToSlot.get(8));
     }
 
     @Test
@@ -80,7 +95,7 @@ class TableTest {
     void countCards_AllSlotsAreFilled() {
 
         fillAllSlots();
-        assertEquals(slotToCard.length, table.countCards());
+        assertEquals(slotToCard.length(), table.countCards());
     }
 
     @Test
@@ -139,11 +154,26 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public int completeSet(int first, int second) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public List<int[]> findSets(int[] cards, int count) {
+            return null;
+        }
+
+        @Override
+        public Iterator<int[]> findSets(int[] cards) {
+            return Collections.emptyIterator();
+        }
+
         @Override
         public void spin() {}
     }
@@ -154,23 +184,135 @@ class TableTest {
         }
     }
 
+    @Test
+    void countSets_UpdatedOnPlaceAndRemove() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+
+        // cards 0 (0000), 1 (0001) and 2 (0002) form a set, and so do 0, 3 (0010) and 6 (0020)
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        assertEquals(0, table.countSets());
+        table.placeCard(2, 2);
+        assertEquals(1, table.countSets());
+        table.removeCard(2);
+        table.placeCard(3, 2);
+        table.placeCard(6, 3);
+        assertEquals(1, table.countSets());
+        assertArrayEquals(new int[]{0, 3, 6}, table.sets().get(0));
+        table.removeCard(0);
+        assertEquals(0, table.countSets());
+    }
+
+    @Test
+    void countSets_CountsTheSetsOfAPrefilledTable() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        int[] slotToCard = {0, 1, 2, 3};
+        int[] cardToSlot = new int[config.deckSize];
+        Arrays.fill(cardToSlot, Table.NONE);
+        for (int slot = 0; slot < slotToCard.length; ++slot)
+            cardToSlot[slotToCard[slot]] = slot;
+        table = new Table(env, slotToCard, cardToSlot);
+
+        // cards 0 (0000), 1 (0001) and 2 (0002) form a set
+        assertEquals(1, table.countSets());
+        assertArrayEquals(new int[]{0, 1, 2}, table.sets().get(0));
+        table.removeCard(1);
+        assertEquals(0, table.countSets());
+        table.placeCard(1, 1);
+        assertEquals(1, table.countSets());
+    }
+
     @Test
     void removeCard(){
         table.placeCard(1,1);
         table.removeCard(1);
-        assertTrue(table.slotToCard[1] == null, "The card deleted");
+        assertTrue(table.slotToCard.get(1) == Table.NONE, "The card deleted");
     }
 
     @Test
     void removeCard_AllCardsRemoved(){
         fillAllSlots();
         boolean ans = true;
-        for(int i = 0; i < slotToCard.length && ans; i++){
+        for(int i = 0; i < slotToCard.length() && ans; i++){
             table.removeCard(i);
-            if(table.slotToCard[i] != null){
+            if(table.slotToCard.get(i) != Table.NONE){
                 ans = false;
             }
         }
         assertTrue(ans == true, "All cards were deleted");
     }
+
+    @Test
+    void epochsMatch_OnlyWhileTheSlotsAreUnchanged() {
+        table.placeCard(3, 0);
+        table.placeCard(5, 1);
+        int[] slots = {0, 1};
+        int[] cards = new int[slots.length];
+        int[] epochs = new int[slots.length];
+        assertTrue(table.readCards(slots, cards, epochs));
+        assertArrayEquals(new int[]{3, 5}, cards);
+        assertTrue(table.epochsMatch(slots, epochs));
+
+        table.removeCard(1);
+        table.placeCard(5, 1); // the same card again, but it may have been taken and returned in between
+        assertFalse(table.epochsMatch(slots, epochs));
+        assertTrue(table.epochsMatch(new int[]{0}, new int[]{epochs[0]}));
+    }
+
+    @Test
+    void invariant_HoldsForConcurrentReaders() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger violations = new AtomicInteger();
+        AtomicInteger checks = new AtomicInteger();
+        Thread[] readers = new Thread[2];
+        for (int i = 0; i < readers.length; ++i) {
+            readers[i] = new Thread(() -> {
+                int[] slots = IntStream.range(0, slotToCard.length()).toArray();
+                int[] cards = new int[slots.length];
+                while (!done.get()) {
+                    if (!table.invariantHolds()) violations.incrementAndGet();
+                    table.readCards(slots, cards);
+                    for (int slot : slots)
+                        if (cards[slot] != Table.NONE && Arrays.stream(cards).filter(card -> card == cards[slot]).count() != 1)
+                            violations.incrementAndGet();
+                    checks.incrementAndGet();
+                    Thread.yield();
+                }
+            });
+            readers[i].start();
+        }
+
+        // the writer keeps moving random cards around, like the dealer does while holding the table's lock
+        Random random = new Random(0);
+        for (int i = 0; i < 5000; ++i) {
+            int slot = random.nextInt(slotToCard.length());
+            synchronized (table) {
+                if (table.cardAt(slot) != Table.NONE) table.removeCard(slot);
+                else {
+                    int card = random.nextInt(cardToSlot.length());
+                    if (table.slotOf(card) == Table.NONE) table.placeCard(card, slot);
+                }
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+
+        assertTrue(checks.get() > 0);
+        assertEquals(0, violations.get(), "readers saw an inconsistent table");
+        assertTrue(table.invariantHolds());
+    }
 }